@@ -0,0 +1,79 @@
+package org.flennn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * The config reads every listener callback performs before an event is published,
+ * against the default config.yml written into a temporary data folder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigLookupBenchmark {
+    private static final String SERVER = "lobby";
+
+    private Path dataFolder;
+    private ConfigManager configManager;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFolder = Files.createTempDirectory("proxylogger-bench");
+        configManager = new ConfigManager(null, Logger.getLogger("ProxyLogger-Benchmarks"), dataFolder);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        configManager.close();
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isLogger() {
+        return configManager.IsLogger();
+    }
+
+    @Benchmark
+    public String getBotToken() {
+        return configManager.getBotToken();
+    }
+
+    @Benchmark
+    public boolean allowsChat() {
+        return configManager.getRules().allowsChat(SERVER);
+    }
+
+    @Benchmark
+    public boolean allowsCommand() {
+        return configManager.getRules().allowsCommand(SERVER, "warp shop");
+    }
+
+    @Benchmark
+    public boolean ignoredCommand() {
+        return configManager.getRules().allowsCommand(SERVER, "/login hunter2");
+    }
+}
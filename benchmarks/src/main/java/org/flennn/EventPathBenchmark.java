@@ -0,0 +1,85 @@
+package org.flennn;
+
+import com.velocitypowered.api.proxy.Player;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost from a Velocity callback to a finished embed: building the {@link LogEvent},
+ * rendering it, and escaping user text. Run with {@code -prof gc} to see bytes allocated per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventPathBenchmark {
+    private static final String SERVER = "lobby";
+    private static final String CHAT_MESSAGE = "anyone up for a round of bedwars? meet at `spawn` in 5";
+    private static final String COMMAND_LINE = "msg Notch hey, check the `/warp shop` sign";
+
+    private ActivityListeners listeners;
+    private EmbedRenderer renderer;
+    private Player player;
+    private LogEvent chatEvent;
+    private LogEvent commandEvent;
+    private LogEvent leaveEvent;
+    private StringBuilder escaped;
+
+    @Setup
+    public void setup() {
+        // createEvent only reads the player, so the listeners need no pipeline or config here
+        listeners = new ActivityListeners(null, new SessionTracker(), new PlayerProfiles(null), null, null, null, new LogMetrics(), null);
+        renderer = new EmbedRenderer("https://cdn.discordapp.com/icons/0/icon.png");
+        player = FakePlayers.player("Steve", SERVER);
+
+        chatEvent = listeners.createEvent(LogEvent.Kind.CHAT, player, SERVER, CHAT_MESSAGE);
+        commandEvent = listeners.createEvent(LogEvent.Kind.COMMAND, player, SERVER, COMMAND_LINE);
+        leaveEvent = listeners.createEvent(LogEvent.Kind.LEAVE, player, SERVER, "1h 12m 5s");
+        escaped = new StringBuilder(128);
+    }
+
+    @Benchmark
+    public LogEvent createChatEvent() {
+        return listeners.createEvent(LogEvent.Kind.CHAT, player, SERVER, CHAT_MESSAGE);
+    }
+
+    @Benchmark
+    public MessageEmbed renderChat() {
+        return renderer.render(chatEvent);
+    }
+
+    @Benchmark
+    public MessageEmbed renderCommand() {
+        return renderer.render(commandEvent);
+    }
+
+    @Benchmark
+    public MessageEmbed renderLeave() {
+        return renderer.render(leaveEvent);
+    }
+
+    @Benchmark
+    public MessageEmbed chatToEmbed() {
+        return renderer.render(listeners.createEvent(LogEvent.Kind.CHAT, player, SERVER, CHAT_MESSAGE));
+    }
+
+    @Benchmark
+    public StringBuilder escapeBackticks() {
+        escaped.setLength(0);
+        EmbedRenderer.appendEscaped(escaped, CHAT_MESSAGE);
+        return escaped;
+    }
+}
@@ -0,0 +1,61 @@
+package org.flennn;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Minimal {@link Player} and {@link ServerConnection} stand-ins built on dynamic proxies, so the
+ * benchmarks don't need a running proxy. Only the accessors the logging path reads are answered.
+ */
+final class FakePlayers {
+
+    private FakePlayers() {
+    }
+
+    static Player player(String username, String serverName) {
+        UUID uniqueId = UUID.nameUUIDFromBytes(("OfflinePlayer:" + username).getBytes());
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", 25565);
+        ServerInfo serverInfo = new ServerInfo(serverName, InetSocketAddress.createUnresolved(serverName, 25565));
+
+        Player[] player = new Player[1];
+        ServerConnection connection = proxy(ServerConnection.class, (self, method, args) -> switch (method.getName()) {
+            case "getServerInfo" -> serverInfo;
+            case "getPlayer" -> player[0];
+            default -> unsupported(self, method.getName(), args);
+        });
+
+        Optional<ServerConnection> currentServer = Optional.of(connection);
+        player[0] = proxy(Player.class, (self, method, args) -> switch (method.getName()) {
+            case "getUsername" -> username;
+            case "getUniqueId" -> uniqueId;
+            case "getRemoteAddress" -> address;
+            case "getProtocolVersion" -> ProtocolVersion.MAXIMUM_VERSION;
+            case "getClientBrand" -> "vanilla";
+            case "getCurrentServer" -> currentServer;
+            default -> unsupported(self, method.getName(), args);
+        });
+
+        return player[0];
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakePlayers.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object unsupported(Object self, String method, Object[] args) {
+        return switch (method) {
+            case "hashCode" -> System.identityHashCode(self);
+            case "equals" -> self == args[0];
+            case "toString" -> "FakePlayer";
+            default -> throw new UnsupportedOperationException(method);
+        };
+    }
+}
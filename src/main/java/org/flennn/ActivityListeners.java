@@ -3,81 +3,85 @@ package org.flennn;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.command.CommandExecuteEvent;
 import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
 import com.velocitypowered.api.event.player.PlayerChatEvent;
+import com.velocitypowered.api.event.player.PlayerClientBrandEvent;
 import com.velocitypowered.api.event.player.ServerConnectedEvent;
 import com.velocitypowered.api.proxy.Player;
-
-import java.net.InetAddress;
-import java.time.Duration;
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.UUID;
+import com.velocitypowered.api.proxy.ServerConnection;
 
 public class ActivityListeners {
 
-    private final DiscordLogger discordLogger;
-    private final Map<UUID, Instant> joinTimes = new HashMap<>();
+    private final EventPipeline pipeline;
+    private final SessionTracker sessions;
+    private final PlayerProfiles profiles;
+    private final AltAccountIndex alts;
+    private final SeenAccounts seen;
     private final ConfigManager configManager;
-
-    public ActivityListeners(DiscordLogger discordLogger, ConfigManager configManager) {
-        this.discordLogger = discordLogger;
+    private final LogMetrics metrics;
+    private final SpamCoalescer coalescer;
+
+    public ActivityListeners(EventPipeline pipeline, SessionTracker sessions, PlayerProfiles profiles, AltAccountIndex alts,
+                             SeenAccounts seen, ConfigManager configManager, LogMetrics metrics, SpamCoalescer coalescer) {
+        this.pipeline = pipeline;
+        this.sessions = sessions;
+        this.profiles = profiles;
+        this.alts = alts;
+        this.seen = seen;
         this.configManager = configManager;
+        this.metrics = metrics;
+        this.coalescer = coalescer;
+    }
+
+    @Subscribe
+    public void onPostLogin(PostLoginEvent event) {
+        Player player = event.getPlayer();
+        if (alts != null) {
+            alts.record(player.getRemoteAddress().getAddress(), player.getUniqueId(), player.getUsername());
+        }
+        profiles.login(player, seen != null && seen.add(player.getUniqueId()));
+    }
+
+    @Subscribe
+    public void onClientBrand(PlayerClientBrandEvent event) {
+        profiles.brandChanged(event.getPlayer(), event.getBrand());
     }
 
     @Subscribe
     public void onPlayerJoin(ServerConnectedEvent event) {
         Player player = event.getPlayer();
+        String serverName = event.getServer().getServerInfo().getName();
+        sessions.connected(player.getUniqueId(), serverName, event.getPreviousServer().isEmpty());
 
         if (!configManager.IsLogger()) return;
 
-        joinTimes.put(player.getUniqueId(), Instant.now());
-
-        String serverName = event.getServer().getServerInfo().getName();
-        String logMessage = String.format(
-                "**%s** joined\n```diff\n" +
-                        "+ UUID: %s\n" +
-                        "+ IP: %s\n" +
-                        "+ Client: %s\n" +
-                        "```",
-                player.getUsername(),
-                player.getUniqueId(),
-                getIP(player),
-                getClientVersion(player)
-        );
+        if (!configManager.getRules().allows(serverName, DiscordLogger.LogType.JOIN_LEAVE)) {
+            metrics.recordFiltered(DiscordLogger.LogType.JOIN_LEAVE);
+            return;
+        }
 
-        discordLogger.log(serverName, DiscordLogger.LogType.JOIN_LEAVE, logMessage);
+        // The join payload lists other accounts seen on the player's address, if any
+        String linked = alts != null ? alts.linkedAccounts(player.getRemoteAddress().getAddress(), player.getUniqueId()) : null;
+        PlayerProfiles.Profile profile = profiles.get(player);
+        int flags = profile.newAccount() && event.getPreviousServer().isEmpty() ? LogEvent.FIRST_JOIN : 0;
+        publish(createEvent(LogEvent.Kind.JOIN, profile, serverName, linked, flags));
     }
 
     @Subscribe
     public void onCommandExecute(CommandExecuteEvent event) {
         if (!configManager.IsLogger()) return;
+        if (!(event.getCommandSource() instanceof Player player)) return;
 
-        if (event.getCommandSource() instanceof Player player) {
-            player.getCurrentServer().ifPresent(serverConnection -> {
-                String serverName = serverConnection.getServerInfo().getName();
-                String safeCommand = escapeBackticks(event.getCommand());
-
-                String logMessage = String.format(
-                        "**%s** executed command\n```diff\n" +
-                                "+ Command: /%s\n" +
-                                "+ Server: %s\n" +
-                                "+ IP: %s\n" +
-                                "+ UUID: %s\n" +
-                                "+ Client: %s\n" +
-                                "```",
-                        player.getUsername(),
-                        safeCommand,
-                        serverName,
-                        getIP(player),
-                        player.getUniqueId(),
-                        getClientVersion(player)
-                );
-
-                discordLogger.log(serverName, DiscordLogger.LogType.COMMAND, logMessage);
-            });
+        ServerConnection connection = player.getCurrentServer().orElse(null);
+        if (connection == null) return;
+
+        String serverName = connection.getServerInfo().getName();
+        if (!configManager.getRules().allowsCommand(serverName, event.getCommand())) {
+            metrics.recordFiltered(DiscordLogger.LogType.COMMAND);
+            return;
         }
+
+        publish(LogEvent.Kind.COMMAND, profiles.get(player), serverName, event.getCommand());
     }
 
     @Subscribe
@@ -85,80 +89,74 @@ public class ActivityListeners {
         if (!configManager.IsLogger()) return;
 
         Player player = event.getPlayer();
-        player.getCurrentServer().ifPresent(serverConnection -> {
-            String serverName = serverConnection.getServerInfo().getName();
-            String safeMessage = escapeBackticks(event.getMessage());
-
-            String logMessage = String.format(
-                    "**%s** in %s\n```diff\n" +
-                            "+ Message: %s\n" +
-                            "+ UUID: %s\n" +
-                            "+ IP: %s\n" +
-                            "+ Client: %s\n" +
-                            "```",
-                    player.getUsername(),
-                    serverName,
-                    safeMessage,
-                    player.getUniqueId(),
-                    getIP(player),
-                    getClientVersion(player)
-            );
-
-            discordLogger.log(serverName, DiscordLogger.LogType.CHAT, logMessage);
-        });
+        ServerConnection connection = player.getCurrentServer().orElse(null);
+        if (connection == null) return;
+
+        String serverName = connection.getServerInfo().getName();
+        if (!configManager.getRules().allowsChat(serverName)) {
+            metrics.recordFiltered(DiscordLogger.LogType.CHAT);
+            return;
+        }
+
+        publish(LogEvent.Kind.CHAT, profiles.get(player), serverName, event.getMessage());
     }
 
     @Subscribe
     public void onPlayerDisconnect(DisconnectEvent event) {
+        Player player = event.getPlayer();
+        SessionTracker.Summary session = sessions.disconnected(player.getUniqueId());
+        PlayerProfiles.Profile profile = profiles.disconnected(player);
+
         if (!configManager.IsLogger()) return;
 
-        Player player = event.getPlayer();
-        player.getCurrentServer().ifPresent(serverConnection -> {
-            String serverName = serverConnection.getServerInfo().getName();
-
-            Duration duration = Duration.between(
-                    joinTimes.getOrDefault(player.getUniqueId(), Instant.now()),
-                    Instant.now()
-            );
-
-            String logMessage = String.format(
-                    "**%s** left\n```diff\n" +
-                            "+ Time Connected: %dh %dm %ds\n" +
-                            "+ Last Server: %s\n" +
-                            "+ UUID: %s\n" +
-                            "+ IP: %s\n" +
-                            "+ Client: %s\n" +
-                            "```",
-                    player.getUsername(),
-                    duration.toHoursPart(),
-                    duration.toMinutesPart(),
-                    duration.toSecondsPart(),
-                    serverName,
-                    player.getUniqueId(),
-                    getIP(player),
-                    getClientVersion(player)
-            );
-
-            discordLogger.log(serverName, DiscordLogger.LogType.JOIN_LEAVE, logMessage);
-            joinTimes.remove(player.getUniqueId());
-        });
+        // The current server is often already gone here, e.g. when the backend kicked the player
+        String serverName = player.getCurrentServer()
+                .map(connection -> connection.getServerInfo().getName())
+                .orElse(session != null ? session.lastServer() : null);
+        if (serverName == null) return;
+
+        if (!configManager.getRules().allows(serverName, DiscordLogger.LogType.JOIN_LEAVE)) {
+            metrics.recordFiltered(DiscordLogger.LogType.JOIN_LEAVE);
+            return;
+        }
+
+        publish(LogEvent.Kind.LEAVE, profile, serverName, session != null ? session.describe() : "0h 0m 0s");
     }
 
-    private String getIP(Player player) {
-        InetAddress address = player.getRemoteAddress().getAddress();
-        return address != null ? address.getHostAddress() : "Unknown";
+    private void publish(LogEvent.Kind kind, PlayerProfiles.Profile profile, String serverName, String payload) {
+        publish(createEvent(kind, profile, serverName, payload, 0));
     }
 
-    private String getClientVersion(Player player) {
-        String version = player.getProtocolVersion().getMostRecentSupportedVersion();
-        String brand = Objects.requireNonNullElse(player.getClientBrand(), "Unknown").toUpperCase();
+    private void publish(LogEvent event) {
+        LogEvent.Kind kind = event.kind();
+        if ((kind == LogEvent.Kind.CHAT || kind == LogEvent.Kind.COMMAND) && coalescer.suppress(event)) {
+            return;
+        }
 
-        return "Version: " + (version != null ? version : "Unknown") + ", Brand: " + brand;
+        metrics.recordPublished(kind.type());
+        pipeline.publish(event);
     }
 
-    private String escapeBackticks(String input) {
-        return input.replace("```", "'''").replace("`", "'");
+    LogEvent createEvent(LogEvent.Kind kind, Player player, String serverName, String payload) {
+        return createEvent(kind, profiles.get(player), serverName, payload, 0);
     }
 
-
-}
\ No newline at end of file
+    private static LogEvent createEvent(LogEvent.Kind kind, PlayerProfiles.Profile profile, String serverName, String payload,
+                                        int flags) {
+        long now = System.currentTimeMillis();
+        return new LogEvent(
+                kind,
+                serverName,
+                profile.id(),
+                profile.name(),
+                profile.ip(),
+                profile.location(),
+                profile.client(),
+                payload,
+                now,
+                0,
+                now,
+                flags
+        );
+    }
+}
@@ -0,0 +1,443 @@
+package org.flennn;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Remembers which accounts joined from which address, so a join can name the other accounts seen there. The index
+ * lives in memory as an open-addressing table keyed by the address as two longs, which makes a lookup a handful of
+ * array reads, and is persisted to {@code alts.dat} as an append-only log of fixed-size records.
+ * <p>
+ * IPv6 addresses are keyed by their /64 prefix, since privacy extensions rotate the lower half. Links not seen within
+ * the retention period are ignored, and once the file holds twice as many records as there are live links it is
+ * rewritten with only those.
+ * <p>
+ * Records are laid out as {@code [long addressHigh][long addressLow][long uuidMost][long uuidLeast][long seen]
+ * [byte nameLength][name][int crc32]}, {@value #RECORD_SIZE} bytes each; the last record for a link wins.
+ */
+public class AltAccountIndex {
+    private static final int RECORD_SIZE = 64;
+    private static final int NAME_OFFSET = Long.BYTES * 5 + 1;
+    private static final int NAME_BYTES = RECORD_SIZE - Integer.BYTES - NAME_OFFSET;
+    private static final int MAX_ACCOUNTS_PER_ADDRESS = 32;
+    private static final int MAX_LISTED = 5;
+    private static final int MIN_COMPACT_RECORDS = 4096;
+    private static final long TOUCH_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path file;
+    private final long retentionMillis;
+    private final CRC32 crc = new CRC32();
+    /** Held while writing the file, so a slow write or rewrite never blocks a lookup. */
+    private final Object fileLock = new Object();
+
+    private final Map<UUID, Account> accounts = new HashMap<>();
+    private long[] highs = new long[1024];
+    private long[] lows = new long[1024];
+    private Address[] addresses = new Address[1024];
+    private int size;
+    private int links;
+    private ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * 64);
+
+    private FileChannel channel;
+    private long fileRecords;
+
+    public AltAccountIndex(Path dataFolder, int retentionDays) throws IOException {
+        this.file = dataFolder.resolve("alts.dat");
+        this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+        Files.createDirectories(dataFolder);
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+    }
+
+    private void load() throws IOException {
+        long expired = System.currentTimeMillis() - retentionMillis;
+        long end = channel.size() / RECORD_SIZE * RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+        long valid = 0;
+
+        read:
+        while (valid < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - valid));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, valid + buffer.position()) < 0) break read;
+            }
+            buffer.flip();
+
+            for (int offset = 0; offset < buffer.limit(); offset += RECORD_SIZE) {
+                if (buffer.getInt(offset + RECORD_SIZE - Integer.BYTES) != checksum(buffer, offset)) {
+                    Utils.Log.warning("Alt account index has a torn record at " + valid + ", truncating.");
+                    break read;
+                }
+
+                long seen = buffer.getLong(offset + Long.BYTES * 4);
+                if (seen >= expired) {
+                    UUID id = new UUID(buffer.getLong(offset + Long.BYTES * 2), buffer.getLong(offset + Long.BYTES * 3));
+                    Account account = accounts.computeIfAbsent(id, Account::new);
+                    account.name = new String(buffer.array(), offset + NAME_OFFSET,
+                            Math.min(NAME_BYTES, buffer.get(offset + NAME_OFFSET - 1) & 0xFF), StandardCharsets.UTF_8);
+                    link(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES), account, seen, true);
+                }
+                fileRecords++;
+                valid += RECORD_SIZE;
+            }
+        }
+
+        // Drops a torn or partial record at the end
+        channel.truncate(valid);
+        channel.position(valid);
+    }
+
+    /**
+     * Records that the account joined from the address.
+     */
+    public void record(InetAddress address, UUID id, String name) {
+        if (!tracked(address)) return;
+
+        byte[] bytes = address.getAddress();
+        long high = high(bytes);
+        long low = low(bytes);
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            Account account = accounts.computeIfAbsent(id, Account::new);
+            boolean renamed = !name.equals(account.name);
+            account.name = name;
+
+            if (link(high, low, account, now, renamed)) {
+                append(high, low, id, name, now);
+            }
+        }
+    }
+
+    /**
+     * The other accounts seen on the address, most recent first, e.g. {@code Alex, Notch +3 more}; or null if there
+     * are none.
+     */
+    public String linkedAccounts(InetAddress address, UUID id) {
+        if (!tracked(address)) return null;
+
+        byte[] bytes = address.getAddress();
+        long high = high(bytes);
+        long low = low(bytes);
+        long expired = System.currentTimeMillis() - retentionMillis;
+
+        String[] names;
+        long[] seen;
+        int count = 0;
+
+        synchronized (this) {
+            int slot = find(high, low);
+            Address entry = addresses[slot];
+            if (entry == null) return null;
+
+            names = new String[entry.count];
+            seen = new long[entry.count];
+            for (int i = 0; i < entry.count; i++) {
+                if (entry.seen[i] < expired || entry.accounts[i].id.equals(id)) continue;
+                names[count] = entry.accounts[i].name;
+                seen[count++] = entry.seen[i];
+            }
+        }
+        if (count == 0) return null;
+
+        // At most a few dozen entries; selection sort by recency is plenty
+        StringBuilder out = new StringBuilder(64);
+        for (int listed = 0; listed < Math.min(count, MAX_LISTED); listed++) {
+            int latest = listed;
+            for (int i = listed + 1; i < count; i++) {
+                if (seen[i] > seen[latest]) latest = i;
+            }
+            String name = names[latest];
+            names[latest] = names[listed];
+            seen[latest] = seen[listed];
+
+            if (listed > 0) out.append(", ");
+            out.append(name);
+        }
+        if (count > MAX_LISTED) out.append(" +").append(count - MAX_LISTED).append(" more");
+        return out.toString();
+    }
+
+    public synchronized int size() {
+        return links;
+    }
+
+    /**
+     * Passes every account with a link inside the retention period.
+     */
+    public synchronized void forEachAccount(Consumer<UUID> action) {
+        accounts.keySet().forEach(action);
+    }
+
+    /**
+     * Writes recorded links to the file, rewriting it first if it has grown to twice the live links.
+     */
+    public void flush() {
+        synchronized (fileLock) {
+            if (channel == null) return;
+
+            ByteBuffer records;
+            boolean rewrite;
+            synchronized (this) {
+                long written = pending.position() / RECORD_SIZE;
+                rewrite = fileRecords + written > Math.max(MIN_COMPACT_RECORDS, links * 2L);
+                if (!rewrite && written == 0) return;
+
+                records = rewrite ? compact() : ByteBuffer.wrap(Arrays.copyOf(pending.array(), pending.position()));
+                pending.clear();
+            }
+
+            try {
+                if (rewrite) {
+                    rewrite(records);
+                } else {
+                    fileRecords += records.remaining() / RECORD_SIZE;
+                    while (records.hasRemaining()) channel.write(records);
+                }
+            } catch (IOException e) {
+                Utils.Log.warning("Failed to write alt account index: " + e.getMessage());
+            }
+        }
+    }
+
+    public void close() {
+        flush();
+        synchronized (fileLock) {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private void rewrite(ByteBuffer records) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (records.hasRemaining()) out.write(records);
+            out.force(false);
+        }
+
+        channel.close();
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            fileRecords = records.limit() / RECORD_SIZE;
+        } finally {
+            // If the move failed the old file, a superset of the live links, stays in use
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+    }
+
+    /**
+     * Rebuilds the table without expired links and returns one record per remaining link.
+     */
+    private ByteBuffer compact() {
+        long expired = System.currentTimeMillis() - retentionMillis;
+        Address[] old = addresses;
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+
+        highs = new long[old.length];
+        lows = new long[old.length];
+        addresses = new Address[old.length];
+        size = 0;
+        links = 0;
+        accounts.clear();
+        pending.clear();
+
+        for (int slot = 0; slot < old.length; slot++) {
+            Address entry = old[slot];
+            if (entry == null) continue;
+
+            for (int i = 0; i < entry.count; i++) {
+                if (entry.seen[i] < expired) continue;
+
+                Account account = entry.accounts[i];
+                accounts.putIfAbsent(account.id, account);
+                link(oldHighs[slot], oldLows[slot], account, entry.seen[i], true);
+                append(oldHighs[slot], oldLows[slot], account.id, account.name, entry.seen[i]);
+            }
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(Arrays.copyOf(pending.array(), pending.position()));
+        pending = ByteBuffer.allocate(RECORD_SIZE * 64);
+        return records;
+    }
+
+    /**
+     * Adds or refreshes a link. Returns true if it should be written: it is new, the account was renamed, or it was
+     * last written more than an hour ago.
+     */
+    private boolean link(long high, long low, Account account, long seen, boolean force) {
+        int slot = find(high, low);
+        Address entry = addresses[slot];
+        if (entry == null) {
+            entry = new Address();
+            highs[slot] = high;
+            lows[slot] = low;
+            addresses[slot] = entry;
+            if (++size * 2 > addresses.length) grow();
+        }
+
+        for (int i = 0; i < entry.count; i++) {
+            if (entry.accounts[i] == account) {
+                if (!force && seen - entry.seen[i] < TOUCH_INTERVAL_MILLIS) return false;
+                entry.seen[i] = Math.max(entry.seen[i], seen);
+                return true;
+            }
+        }
+
+        if (entry.add(account, seen)) links++;
+        return true;
+    }
+
+    private int find(long high, long low) {
+        int mask = addresses.length - 1;
+        long hash = (high * 0x9E3779B97F4A7C15L) ^ (low * 0xC2B2AE3D27D4EB4FL);
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+        while (addresses[slot] != null && (highs[slot] != high || lows[slot] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        Address[] old = addresses;
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+
+        highs = new long[old.length * 2];
+        lows = new long[old.length * 2];
+        addresses = new Address[old.length * 2];
+
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] == null) continue;
+            int slot = find(oldHighs[i], oldLows[i]);
+            highs[slot] = oldHighs[i];
+            lows[slot] = oldLows[i];
+            addresses[slot] = old[i];
+        }
+    }
+
+    private void append(long high, long low, UUID id, String name, long seen) {
+        if (pending.remaining() < RECORD_SIZE) {
+            ByteBuffer grown = ByteBuffer.allocate(pending.capacity() * 2);
+            grown.put(pending.flip());
+            pending = grown;
+        }
+
+        int offset = pending.position();
+        byte[] nameBytes = truncate(name);
+        pending.putLong(high).putLong(low)
+                .putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits())
+                .putLong(seen)
+                .put((byte) nameBytes.length)
+                .put(nameBytes);
+        pending.position(offset + RECORD_SIZE - Integer.BYTES);
+        pending.putInt(checksum(pending, offset));
+    }
+
+    private int checksum(ByteBuffer buffer, int offset) {
+        crc.reset();
+        crc.update(buffer.array(), offset, RECORD_SIZE - Integer.BYTES);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Names longer than the record allows are cut at a character boundary.
+     */
+    private static byte[] truncate(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = name.length();
+        while (bytes.length > NAME_BYTES) {
+            bytes = name.substring(0, --length).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    /**
+     * Proxies and local connections would link every player to every other one.
+     */
+    private static boolean tracked(InetAddress address) {
+        return address != null && !address.isLoopbackAddress() && !address.isAnyLocalAddress();
+    }
+
+    private static long high(byte[] address) {
+        return address.length == 4 ? 0 : bits(address, 0);
+    }
+
+    /**
+     * IPv4 addresses are stored IPv4-mapped ({@code ::ffff:a.b.c.d}); IPv6 keeps only the /64 prefix.
+     */
+    private static long low(byte[] address) {
+        return address.length == 4 ? 0xFFFF_0000_0000L | (bits(address, 0) >>> 32) : 0;
+    }
+
+    private static long bits(byte[] bytes, int from) {
+        long value = 0;
+        for (int i = from; i < from + Long.BYTES; i++) {
+            value = (value << 8) | (i < bytes.length ? bytes[i] & 0xFF : 0);
+        }
+        return value;
+    }
+
+    private static final class Account {
+        final UUID id;
+        String name;
+
+        Account(UUID id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Accounts seen on one address and when each was last seen there.
+     */
+    private static final class Address {
+        Account[] accounts = new Account[2];
+        long[] seen = new long[2];
+        int count;
+
+        /**
+         * Adds the account, replacing the least recently seen one when full. Returns true if the link count grew.
+         */
+        boolean add(Account account, long when) {
+            if (count == MAX_ACCOUNTS_PER_ADDRESS) {
+                int oldest = 0;
+                for (int i = 1; i < count; i++) {
+                    if (seen[i] < seen[oldest]) oldest = i;
+                }
+                if (seen[oldest] > when) return false;
+                accounts[oldest] = account;
+                seen[oldest] = when;
+                return false;
+            }
+
+            if (count == accounts.length) {
+                accounts = Arrays.copyOf(accounts, count * 2);
+                seen = Arrays.copyOf(seen, count * 2);
+            }
+            accounts[count] = account;
+            seen[count++] = when;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.flennn;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Category and channel IDs resolved for each server, persisted to {@code channels.json} so a restart
+ * doesn't have to rediscover them by scanning the guild.
+ */
+public class ChannelCache {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path file;
+    private Stored stored = new Stored(null, new HashMap<>());
+
+    public ChannelCache(Path dataFolder) {
+        this.file = dataFolder.resolve("channels.json");
+        load();
+    }
+
+    private synchronized void load() {
+        if (!Files.exists(file)) return;
+
+        try (Reader reader = Files.newBufferedReader(file)) {
+            Stored loaded = GSON.fromJson(reader, Stored.class);
+            if (loaded != null && loaded.servers != null) {
+                stored = new Stored(loaded.guildId, new HashMap<>(loaded.servers));
+            }
+        } catch (IOException | JsonParseException e) {
+            Utils.Log.warning("Failed to read channel cache, channels will be looked up again: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the cached entries for the given guild, dropping everything cached for a different one.
+     */
+    public synchronized Map<String, Entry> forGuild(String guildId) {
+        if (!guildId.equals(stored.guildId)) {
+            stored = new Stored(guildId, new HashMap<>());
+            save();
+        }
+        return Map.copyOf(stored.servers);
+    }
+
+    public synchronized void put(String serverName, Entry entry) {
+        if (entry.equals(stored.servers.put(serverName, entry))) return;
+        save();
+    }
+
+    public synchronized void remove(String serverName) {
+        if (stored.servers.remove(serverName) != null) {
+            save();
+        }
+    }
+
+    private void save() {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                GSON.toJson(stored, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Utils.Log.warning("Failed to save channel cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * IDs for one server; 0 marks a channel that could not be created, or an alerts channel that isn't needed
+     * because the watchlist is off.
+     */
+    public record Entry(long category, long chat, long commands, long joinLeave, long alerts) {
+    }
+
+    private record Stored(String guildId, Map<String, Entry> servers) {
+    }
+}
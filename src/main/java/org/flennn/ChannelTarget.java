@@ -0,0 +1,55 @@
+package org.flennn;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Posts through the bot's JDA session. Holds only the channel ID and resolves it from JDA's channel cache
+ * on each send, so it never keeps a stale channel object around.
+ */
+public final class ChannelTarget implements EmbedTarget {
+    private final JDA jda;
+    private final long channelId;
+    private final String key;
+
+    public ChannelTarget(JDA jda, long channelId) {
+        this.jda = jda;
+        this.channelId = channelId;
+        this.key = Long.toUnsignedString(channelId);
+    }
+
+    public long channelId() {
+        return channelId;
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+
+    @Override
+    public String name() {
+        TextChannel channel = jda.getTextChannelById(channelId);
+        return channel != null ? "#" + channel.getName() : "channel " + key;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return jda.getStatus() == JDA.Status.CONNECTED && jda.getTextChannelById(channelId) != null;
+    }
+
+    @Override
+    public void send(List<MessageEmbed> embeds, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        TextChannel channel = jda.getTextChannelById(channelId);
+        if (channel == null) {
+            onFailure.accept(new IllegalStateException("Channel " + key + " no longer exists"));
+            return;
+        }
+
+        channel.sendMessageEmbeds(embeds).queue(message -> onSuccess.run(), onFailure);
+    }
+}
@@ -6,27 +6,38 @@ import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.ArrayList;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 import java.util.logging.Logger;
 
 public class ConfigManager {
+    private static final long WATCH_DEBOUNCE_MILLIS = 250;
+
     private final Logger logger;
     private final Path configPath;
     private final Yaml yaml;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private Map<String, Object> config;
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    private byte[] contentHash;
+    private WatchService watchService;
+    private final List<BiConsumer<ConfigSnapshot, ConfigSnapshot>> reloadListeners = new CopyOnWriteArrayList<>();
 
     @Inject
     public ConfigManager(ProxyServer proxyServer, Logger logger, @DataDirectory Path dataFolder) {
@@ -53,7 +64,12 @@ public class ConfigManager {
         }
     }
 
-    private synchronized void loadConfig() throws IOException {
+    /**
+     * Loads config.yml and publishes a new snapshot if its content changed since the last load.
+     *
+     * @return true if a new snapshot was published
+     */
+    private synchronized boolean loadConfig() throws IOException {
         Files.createDirectories(configPath.getParent());
 
         if (!Files.exists(configPath)) {
@@ -64,7 +80,14 @@ public class ConfigManager {
             }
         }
 
-        try (InputStream inputStream = Files.newInputStream(configPath)) {
+        byte[] content = Files.readAllBytes(configPath);
+        byte[] hash = sha256(content);
+        if (Arrays.equals(hash, contentHash)) {
+            return false;
+        }
+
+        Map<String, Object> config;
+        try (InputStream inputStream = new ByteArrayInputStream(content)) {
             config = yaml.load(inputStream);
         }
 
@@ -72,13 +95,32 @@ public class ConfigManager {
             config = new HashMap<>();
         }
 
-        validateConfig();
+        validateConfig(config);
+        ConfigSnapshot previous = snapshot;
+        snapshot = ConfigSnapshot.compile(config);
+        contentHash = hash;
         Utils.Log.info("✅ Configuration loaded successfully.");
+
+        for (BiConsumer<ConfigSnapshot, ConfigSnapshot> listener : reloadListeners) {
+            try {
+                listener.accept(previous, snapshot);
+            } catch (Exception e) {
+                Utils.Log.severe("❌ Failed to apply reloaded configuration: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registers a callback that receives the previous and the new snapshot after every successful reload.
+     */
+    public void addReloadListener(BiConsumer<ConfigSnapshot, ConfigSnapshot> listener) {
+        reloadListeners.add(listener);
     }
 
     public synchronized void saveConfig() {
         try (Writer writer = Files.newBufferedWriter(configPath)) {
-            yaml.dump(config, writer);
+            yaml.dump(snapshot.raw(), writer);
             Utils.Log.info("✅ Configuration saved successfully.");
         } catch (IOException e) {
             Utils.Log.severe("❌ Failed to save config: " + e.getMessage());
@@ -88,101 +130,272 @@ public class ConfigManager {
 
     public synchronized void reloadConfig() {
         try {
-            loadConfig();
-            Utils.Log.info("✅ Configuration reloaded");
-        } catch (IOException e) {
+            if (loadConfig()) {
+                Utils.Log.info("✅ Configuration reloaded");
+            } else {
+                Utils.Log.info("Configuration unchanged, nothing to reload");
+            }
+        } catch (Exception e) {
             Utils.Log.severe("❌ Config Reload failed: " + e.getMessage());
         }
     }
 
-    private void validateConfig() {
+    private void validateConfig(Map<String, Object> config) {
         if (config == null || config.isEmpty()) {
             Utils.Log.severe("❌ Configuration is empty or null");
             return;
         }
 
-        Map<String, Object> discord = getSection("discord");
-        if (discord == null || !discord.containsKey("bot-token") || discord.get("bot-token").toString().isEmpty()) {
+        Map<String, Object> discord = new ConfigSnapshot.Reader(config).getSection("discord");
+        if ("webhook".equalsIgnoreCase(String.valueOf(discord.get("delivery")).trim())) {
+            if (new ConfigSnapshot.Reader(config).getSection("discord.webhooks").isEmpty()) {
+                Utils.Log.severe("❌ Webhook delivery needs at least one entry under discord.webhooks");
+            }
+            return;
+        }
+
+        if (!discord.containsKey("bot-token") || discord.get("bot-token") == null || discord.get("bot-token").toString().isEmpty()) {
             Utils.Log.severe("❌ Discord bot token is required");
         }
     }
 
-    public void startAutoReload() {
-        scheduler.scheduleAtFixedRate(this::reloadConfig, 30, 30, TimeUnit.MINUTES);
+    /**
+     * Watches config.yml and reloads it whenever its content changes on disk.
+     */
+    public void startAutoReload() throws IOException {
+        watchService = configPath.getFileSystem().newWatchService();
+        configPath.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread.ofVirtual().name("ProxyLogger-ConfigWatcher").start(this::watchLoop);
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = false;
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path changed && changed.getFileName().equals(configPath.getFileName())) {
+                        touched = true;
+                    }
+                }
+                key.reset();
+
+                if (touched) {
+                    // Editors often write in several steps; let them finish before reading
+                    Thread.sleep(WATCH_DEBOUNCE_MILLIS);
+                    reloadIfChanged();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+        }
+    }
+
+    private void reloadIfChanged() {
+        try {
+            if (loadConfig()) {
+                Utils.Log.info("✅ Configuration reloaded after config.yml changed");
+            }
+        } catch (Exception e) {
+            Utils.Log.severe("❌ Config Reload failed: " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        if (watchService == null) return;
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            Utils.Log.warning("Failed to stop config watcher: " + e.getMessage());
+        }
     }
 
     // =======================
     // Configuration Getters
     // =======================
 
+    public ConfigSnapshot snapshot() {
+        return snapshot;
+    }
+
     public String getBotToken() {
-        return getString("discord.bot-token", "");
+        return snapshot.botToken();
+    }
+
+    public List<String> getExtraBotTokens() {
+        return snapshot.extraBotTokens();
     }
 
     public String getLogsGuildID() {
-        return getString("discord.logger-guildid", "");
+        return snapshot.logsGuildId();
     }
 
 
-    public Boolean IsLogger() {
-        return getBoolean("discord.logger", false);
+    public boolean IsLogger() {
+        return snapshot.logger();
     }
 
+    public boolean IsWebhookDelivery() {
+        return snapshot.webhookDelivery();
+    }
 
-    // =======================
-    // Helper Methods
-    // =======================
+    public Map<String, WebhookLogger.ServerWebhooks> getWebhooks() {
+        return snapshot.webhooks();
+    }
 
-    @SuppressWarnings("unchecked")
-    public Map<String, Object> getSection(String key) {
-        Object value = getValue(key);
-        return (value instanceof Map) ? (Map<String, Object>) value : new HashMap<>();
+    public boolean IsBatching() {
+        return snapshot.batching();
     }
 
-    private int getInt(String key, int defaultValue) {
-        Object value = getValue(key);
-        return value != null ? Integer.parseInt(value.toString()) : defaultValue;
+    public long getBatchFlushMillis() {
+        return snapshot.batchFlushMillis();
     }
 
-    private String getString(String key, String defaultValue) {
-        Object value = getValue(key);
-        return value != null ? value.toString() : defaultValue;
+    public int getPipelineCapacity() {
+        return snapshot.pipelineCapacity();
     }
 
-    private boolean getBoolean(String key, boolean defaultValue) {
-        Object value = getValue(key);
-        return value != null ? Boolean.parseBoolean(value.toString()) : defaultValue;
+    public String getPipelineOverflowPolicy() {
+        return snapshot.pipelineOverflowPolicy();
     }
 
-    private List<String> getList(String key) {
-        Object value = getValue(key);
-        return (value instanceof List) ? (List<String>) value : new ArrayList<>();
+    public long getPipelineBlockTimeoutMillis() {
+        return snapshot.pipelineBlockTimeoutMillis();
     }
 
-    private void set(String key, Object value) {
-        setValue(key, value);
-        saveConfig();
+    public int getSpoolSegmentBytes() {
+        return snapshot.spoolSegmentBytes();
     }
 
-    private Object getValue(String key) {
-        String[] keys = key.split("\\.");
-        Map<String, Object> section = config;
-        for (int i = 0; i < keys.length - 1; i++) {
-            section = (Map<String, Object>) section.computeIfAbsent(keys[i], k -> new HashMap<>());
-        }
-        return section.get(keys[keys.length - 1]);
+    public long getSpoolMaxBytes() {
+        return snapshot.spoolMaxBytes();
+    }
+
+    public int getSpoolMaxAttempts() {
+        return snapshot.spoolMaxAttempts();
+    }
+
+    public long getSpoolMaxDeferMillis() {
+        return snapshot.spoolMaxDeferMillis();
+    }
+
+    public boolean IsArchive() {
+        return snapshot.archive();
     }
 
-    private void setValue(String key, Object value) {
-        String[] keys = key.split("\\.");
-        Map<String, Object> section = config;
-        for (int i = 0; i < keys.length - 1; i++) {
-            section = (Map<String, Object>) section.computeIfAbsent(keys[i], k -> new HashMap<>());
+    public int getArchiveBlockBytes() {
+        return snapshot.archiveBlockBytes();
+    }
+
+    public long getArchiveSegmentBytes() {
+        return snapshot.archiveSegmentBytes();
+    }
+
+    public int getArchiveRetentionDays() {
+        return snapshot.archiveRetentionDays();
+    }
+
+    public long getArchiveMaxBytes() {
+        return snapshot.archiveMaxBytes();
+    }
+
+    public int getSearchMaxResults() {
+        return snapshot.searchMaxResults();
+    }
+
+    public boolean IsDatabase() {
+        return snapshot.database();
+    }
+
+    public String getDatabaseFile() {
+        return snapshot.databaseFile();
+    }
+
+    public int getDatabaseBatchSize() {
+        return snapshot.databaseBatchSize();
+    }
+
+    public long getDatabaseCommitIntervalMillis() {
+        return snapshot.databaseCommitIntervalMillis();
+    }
+
+    public long getCoalesceWindowMillis() {
+        return snapshot.coalesceWindowMillis();
+    }
+
+    public long getDigestIntervalMillis() {
+        return snapshot.digestIntervalMillis();
+    }
+
+    public int getFirstJoinBootstrapDays() {
+        return snapshot.firstJoinBootstrapDays();
+    }
+
+    public boolean IsAlts() {
+        return snapshot.alts();
+    }
+
+    public int getAltsRetentionDays() {
+        return snapshot.altsRetentionDays();
+    }
+
+    public boolean IsGeoIp() {
+        return snapshot.geoIp();
+    }
+
+    public List<String> getGeoIpDatabases() {
+        return snapshot.geoIpDatabases();
+    }
+
+    public int getGeoIpCacheSize() {
+        return snapshot.geoIpCacheSize();
+    }
+
+    public boolean IsPrometheus() {
+        return snapshot.prometheus();
+    }
+
+    public String getPrometheusBind() {
+        return snapshot.prometheusBind();
+    }
+
+    public int getPrometheusPort() {
+        return snapshot.prometheusPort();
+    }
+
+    public LaneScheduler.Settings getLaneSettings() {
+        return snapshot.lanes();
+    }
+
+    public Watchlist getWatchlist() {
+        return snapshot.watchlist();
+    }
+
+    public LogRules getRules() {
+        return snapshot.rules();
+    }
+
+
+    // =======================
+    // Helper Methods
+    // =======================
+
+    public Map<String, Object> getSection(String key) {
+        return new ConfigSnapshot.Reader(snapshot.raw()).getSection(key);
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        section.put(keys[keys.length - 1], value);
     }
 
     private void handleCriticalError() {
         logger.severe("CRITICAL CONFIG ERROR - Plugin may not function properly");
     }
-}
\ No newline at end of file
+}
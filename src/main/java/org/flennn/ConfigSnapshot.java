@@ -0,0 +1,171 @@
+package org.flennn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, typed view of config.yml. Compiled once per load and published by {@link ConfigManager}
+ * through a volatile reference, so hot-path reads are plain field accesses.
+ */
+public record ConfigSnapshot(
+        Map<String, Object> raw,
+        String botToken,
+        List<String> extraBotTokens,
+        String logsGuildId,
+        boolean logger,
+        boolean webhookDelivery,
+        Map<String, WebhookLogger.ServerWebhooks> webhooks,
+        boolean batching,
+        long batchFlushMillis,
+        int pipelineCapacity,
+        String pipelineOverflowPolicy,
+        long pipelineBlockTimeoutMillis,
+        int spoolSegmentBytes,
+        long spoolMaxBytes,
+        int spoolMaxAttempts,
+        long spoolMaxDeferMillis,
+        boolean archive,
+        int archiveBlockBytes,
+        long archiveSegmentBytes,
+        int archiveRetentionDays,
+        long archiveMaxBytes,
+        int searchMaxResults,
+        boolean database,
+        String databaseFile,
+        int databaseBatchSize,
+        long databaseCommitIntervalMillis,
+        long coalesceWindowMillis,
+        long digestIntervalMillis,
+        int firstJoinBootstrapDays,
+        boolean alts,
+        int altsRetentionDays,
+        boolean geoIp,
+        List<String> geoIpDatabases,
+        int geoIpCacheSize,
+        boolean prometheus,
+        String prometheusBind,
+        int prometheusPort,
+        LaneScheduler.Settings lanes,
+        Watchlist watchlist,
+        LogRules rules
+) {
+    static final ConfigSnapshot EMPTY = compile(Map.of());
+
+    public static ConfigSnapshot compile(Map<String, Object> raw) {
+        raw = freeze(raw);
+        Reader reader = new Reader(raw);
+
+        return new ConfigSnapshot(
+                raw,
+                reader.getString("discord.bot-token", ""),
+                reader.getList("discord.extra-bot-tokens").stream().filter(token -> !token.isBlank()).toList(),
+                reader.getString("discord.logger-guildid", ""),
+                reader.getBoolean("discord.logger", false),
+                "webhook".equalsIgnoreCase(reader.getString("discord.delivery", "bot").trim()),
+                WebhookLogger.compile(reader),
+                reader.getBoolean("discord.batching.enabled", true),
+                Math.max(250, reader.getInt("discord.batching.flush-interval-ms", 2000)),
+                Math.max(64, reader.getInt("pipeline.capacity", 8192)),
+                reader.getString("pipeline.overflow-policy", "drop-oldest"),
+                Math.max(0, reader.getInt("pipeline.block-timeout-ms", 50)),
+                Math.max(1, Math.min(256, reader.getInt("spool.segment-size-mb", 4))) * 1024 * 1024,
+                Math.max(2, reader.getInt("spool.max-size-mb", 256)) * 1024L * 1024L,
+                Math.max(1, reader.getInt("spool.max-attempts", 5)),
+                Math.max(1, reader.getInt("spool.max-defer-minutes", 60)) * 60_000L,
+                reader.getBoolean("archive.enabled", false),
+                Math.max(4, Math.min(1024, reader.getInt("archive.block-size-kb", 64))) * 1024,
+                Math.max(1, reader.getInt("archive.segment-size-mb", 64)) * 1024L * 1024L,
+                Math.max(0, reader.getInt("archive.retention-days", 90)),
+                Math.max(0, reader.getInt("archive.max-size-mb", 4096)) * 1024L * 1024L,
+                Math.max(10, reader.getInt("archive.search-max-results", 500)),
+                reader.getBoolean("database.enabled", false),
+                reader.getString("database.file", "logs"),
+                Math.max(1, reader.getInt("database.batch-size", 500)),
+                Math.max(100, reader.getInt("database.commit-interval-ms", 1000)),
+                Math.max(0, reader.getInt("rules.coalesce-window-ms", 5000)),
+                Math.max(10, reader.getInt("rules.digest-interval-seconds", 300)) * 1000L,
+                Math.max(0, reader.getInt("rules.first-join-bootstrap-days", 14)),
+                reader.getBoolean("alts.enabled", false),
+                Math.max(1, reader.getInt("alts.retention-days", 90)),
+                reader.getBoolean("geoip.enabled", false),
+                reader.getList("geoip.databases").stream().filter(name -> !name.isBlank()).toList(),
+                Math.max(16, reader.getInt("geoip.cache-size", 4096)),
+                reader.getBoolean("metrics.prometheus.enabled", false),
+                reader.getString("metrics.prometheus.bind", "127.0.0.1"),
+                reader.getInt("metrics.prometheus.port", 9464),
+                LaneScheduler.Settings.compile(reader),
+                Watchlist.compile(reader),
+                LogRules.compile(reader)
+        );
+    }
+
+    /**
+     * Deep copy of the YAML tree with unmodifiable maps and lists, so sections handed out by {@link Reader} can't be
+     * changed under a published snapshot. Keeps key order for saving and allows YAML nulls, unlike {@code Map.copyOf}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T freeze(T value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, item) -> copy.put(key, freeze(item)));
+            return (T) Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object item : list) copy.add(freeze(item));
+            return (T) Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    /**
+     * Dotted-path lookups over the raw YAML tree. Only used while compiling, never on the hot path.
+     */
+    record Reader(Map<String, Object> root) {
+        Object getValue(String key) {
+            Object current = root;
+            for (String part : key.split("\\.")) {
+                if (!(current instanceof Map<?, ?> section)) return null;
+                current = section.get(part);
+            }
+            return current;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> getSection(String key) {
+            Object value = getValue(key);
+            return (value instanceof Map) ? (Map<String, Object>) value : Map.of();
+        }
+
+        int getInt(String key, int defaultValue) {
+            Object value = getValue(key);
+            if (value == null) return defaultValue;
+
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                Utils.Log.warning("Invalid number for " + key + ": " + value + ", using " + defaultValue);
+                return defaultValue;
+            }
+        }
+
+        String getString(String key, String defaultValue) {
+            Object value = getValue(key);
+            return value != null ? value.toString() : defaultValue;
+        }
+
+        boolean getBoolean(String key, boolean defaultValue) {
+            Object value = getValue(key);
+            return value != null ? Boolean.parseBoolean(value.toString()) : defaultValue;
+        }
+
+        List<String> getList(String key) {
+            Object value = getValue(key);
+            if (!(value instanceof List<?> list)) return List.of();
+            return list.stream().map(String::valueOf).toList();
+        }
+    }
+}
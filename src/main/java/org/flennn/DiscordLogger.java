@@ -4,71 +4,209 @@ import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.proxy.server.ServerRegisteredEvent;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
-import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.concrete.Category;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.events.channel.ChannelDeleteEvent;
+import net.dv8tion.jda.api.events.channel.update.ChannelUpdateNameEvent;
+import net.dv8tion.jda.api.events.channel.update.ChannelUpdateParentEvent;
+import net.dv8tion.jda.api.events.session.SessionRecreateEvent;
+import net.dv8tion.jda.api.events.session.SessionResumeEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
 
-import java.awt.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
-public class DiscordLogger {
+/**
+ * Bot-account delivery. Created before Discord is connected so listeners can start right away; until
+ * {@link #connect} resolves the log channels, events are parked in the spool's failed set. Once a server's channels
+ * are known, its parked events are replayed before any live event for it is sent.
+ * <p>
+ * Resolved channel IDs are kept in a {@link ChannelCache}. Guild scans only happen for servers that have no
+ * valid cached entry, and JDA channel events invalidate entries when a log channel is deleted, renamed or moved.
+ * <p>
+ * While the watchlist is enabled, each category also gets an {@code alerts} channel for watchlist hits.
+ * <p>
+ * With extra bot tokens configured, every log channel is a {@link ShardedTarget} over all bot sessions. The first
+ * bot manages channels and listens for gateway events; the others only post.
+ */
+public class DiscordLogger implements LogDelivery {
+    private static final long FAILED_REPLAY_INTERVAL_MINUTES = 2;
+
     private final ProxyServer proxy;
-    private final Guild guild;
+    private volatile JDA jda;
+    private volatile List<JDA> bots = List.of();
+    private volatile List<ShardedTarget.Health> botHealth = List.of();
+    private volatile Guild guild;
     private final Map<String, ServerChannels> serverChannels = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    /** Command route channels by ID, so each keeps one sender and its in-flight hold across messages. */
+    private final Map<Long, EmbedTarget> routeTargets = new ConcurrentHashMap<>();
+    private final PluginScheduler.Group tasks;
     private final Logger logger;
     private final ConfigManager configManager;
     private final Set<String> serversBeingCreated = ConcurrentHashMap.newKeySet();
-    private final Set<String> initializedServers = ConcurrentHashMap.newKeySet();
-    private final long lastCheckedTimestamp = System.currentTimeMillis();
-
-    public DiscordLogger(ProxyServer proxy, JDA jda, String guildId, Logger logger, ConfigManager configManager) {
+    private final EventSpool spool;
+    private final ChannelCache channelCache;
+    private final EmbedBatcher batcher;
+    private final LogMetrics metrics;
+    private volatile EmbedRenderer renderer;
+    private final GatewayListener gatewayListener = new GatewayListener();
+    private final AtomicBoolean replayAll = new AtomicBoolean();
+
+    public DiscordLogger(ProxyServer proxy, Logger logger, ConfigManager configManager, EventSpool spool,
+                         ChannelCache channelCache, LogMetrics metrics, PluginScheduler scheduler) {
         this.proxy = proxy;
         this.logger = logger;
-        this.guild = jda.getGuildById(guildId);
         this.configManager = configManager;
+        this.spool = spool;
+        this.channelCache = channelCache;
+        // Token changes reconnect and build a new logger, so the bot count is fixed for this one
+        this.batcher = new EmbedBatcher(spool, metrics, configManager, 1 + configManager.getExtraBotTokens().size());
+        this.metrics = metrics;
+        this.tasks = scheduler.group();
+
+        if (configManager.IsBatching()) {
+            batcher.scheduleFlush(tasks, configManager.getBatchFlushMillis());
+        }
+    }
 
-
+    /**
+     * Attaches the ready JDA sessions and starts resolving log channels. The first session is the primary bot.
+     * Safe to call from any thread.
+     */
+    public void connect(List<JDA> bots) {
+        JDA jda = bots.get(0);
+        this.botHealth = bots.stream()
+                .map(bot -> new ShardedTarget.Health("Bot " + bot.getSelfUser().getName(), bot.getSelfUser().getId()))
+                .toList();
+        this.bots = bots;
+        routeTargets.clear();
+
+        Guild guild = jda.getGuildById(configManager.getLogsGuildID());
         if (guild == null) {
             Utils.Log.severe("Invalid logger guild ID provided");
         }
 
-        initialize();
+        this.renderer = new EmbedRenderer(guild != null ? guild.getIconUrl() : null);
+        this.jda = jda;
+        jda.addEventListener(gatewayListener);
+
+        if (guild != null) {
+            loadCachedChannels(jda, guild);
+        }
+        this.guild = guild;
+
+        tasks.execute(() -> proxy.getAllServers().forEach(this::setupServerChannels));
+        tasks.repeat(() -> replayAll.set(true), FAILED_REPLAY_INTERVAL_MINUTES, FAILED_REPLAY_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private void loadCachedChannels(JDA jda, Guild guild) {
+        int loaded = 0;
+
+        boolean needsAlerts = !configManager.getWatchlist().isEmpty();
+
+        for (Map.Entry<String, ChannelCache.Entry> cached : channelCache.forGuild(guild.getId()).entrySet()) {
+            ChannelCache.Entry ids = cached.getValue();
+            boolean valid = jda.getCategoryById(ids.category()) != null
+                    && jda.getTextChannelById(ids.chat()) != null
+                    && jda.getTextChannelById(ids.commands()) != null
+                    && jda.getTextChannelById(ids.joinLeave()) != null
+                    && (!needsAlerts || jda.getTextChannelById(ids.alerts()) != null);
+
+            if (valid) {
+                serverChannels.put(cached.getKey(), channelsFor(cached.getKey(), ids));
+                loaded++;
+            } else {
+                channelCache.remove(cached.getKey());
+            }
+        }
+
+        if (loaded > 0) {
+            Utils.Log.info("Loaded cached log channels for " + loaded + " servers");
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        JDA current = jda;
+        if (current != null) {
+            current.removeEventListener(gatewayListener);
+        }
+        tasks.close();
+        batcher.flush();
+    }
+
+    /**
+     * After a reconnect or once the retry interval passed, replays every parked event; otherwise only those of servers
+     * whose channels just became available, so other failed events don't spend a delivery attempt.
+     */
+    @Override
+    public void replayDue() {
+        if (replayAll.getAndSet(false)) {
+            serverChannels.values().forEach(channels -> channels.backlog().set(false));
+            spool.replayFailed(this::log);
+            return;
+        }
+
+        serverChannels.forEach((serverName, channels) -> {
+            if (channels.backlog().compareAndSet(true, false)) replayServer(serverName);
+        });
     }
 
-    private void initialize() {
-        proxy.getAllServers().forEach(this::setupServerChannels);
-        scheduler.scheduleAtFixedRate(this::verifyChannels, 0, 2, TimeUnit.MINUTES);
+    private void replayServer(String serverName) {
+        spool.replayFailed(event -> serverName.equals(event.serverName()), this::log);
     }
 
     @Subscribe
     public void onServerRegistered(ServerRegisteredEvent event) {
-        scheduler.execute(() -> setupServerChannels(event.registeredServer()));
+        tasks.execute(() -> setupServerChannels(event.registeredServer()));
+    }
+
+    /**
+     * Forgets a server's channels when one of its log channels or its category changed,
+     * and looks them up again by name.
+     */
+    private void invalidate(long channelId) {
+        serverChannels.forEach((serverName, channels) -> {
+            if (!channels.tracks(channelId) || !serverChannels.remove(serverName, channels)) return;
+
+            channelCache.remove(serverName);
+            Utils.Log.info("Log channels for " + serverName + " changed, resolving them again");
+            proxy.getServer(serverName).ifPresent(server -> tasks.execute(() -> setupServerChannels(server)));
+        });
     }
 
-    private void verifyChannels() {
-        proxy.getAllServers().forEach(this::setupServerChannels);
+    /**
+     * Invalidates every server whose log channels are no longer in JDA's cache.
+     */
+    private void revalidateChannels() {
+        JDA jda = this.jda;
+        if (jda == null) return;
+
+        serverChannels.forEach((serverName, channels) -> {
+            ChannelCache.Entry ids = channels.ids();
+            if (jda.getCategoryById(ids.category()) == null) invalidate(ids.category());
+            for (long channelId : new long[]{ids.chat(), ids.commands(), ids.joinLeave(), ids.alerts()}) {
+                if (channelId != 0 && jda.getTextChannelById(channelId) == null) invalidate(channelId);
+            }
+        });
     }
 
     private void setupServerChannels(RegisteredServer server) {
+        Guild guild = this.guild;
         if (server == null || guild == null) return;
 
         final String serverName = server.getServerInfo().getName();
 
-        if (initializedServers.contains(serverName) || serversBeingCreated.contains(serverName)) {
+        if (serverChannels.containsKey(serverName) || !serversBeingCreated.add(serverName)) {
             return;
         }
 
@@ -79,163 +217,279 @@ public class DiscordLogger {
                 .findFirst()
                 .orElse(null);
 
-        if (existingCategory == null) {
-            serversBeingCreated.add(serverName);
-            createNewCategory(serverName);
-        } else {
-            updateExistingCategory(existingCategory, serverName);
-            initializedServers.add(serverName);
-        }
+        CompletableFuture<Category> category = existingCategory != null
+                ? CompletableFuture.completedFuture(existingCategory)
+                : guild.createCategory(serverName).submit();
+
+        category.thenCompose(this::resolveChannels)
+                .whenComplete((ids, error) -> {
+                    serversBeingCreated.remove(serverName);
+
+                    if (error != null) {
+                        Utils.Log.warning("Failed to set up channels for " + serverName + ": " + error.getMessage());
+                        return;
+                    }
+
+                    // Its new channels start with a backlog, so whatever was logged while they were unknown goes first
+                    serverChannels.put(serverName, channelsFor(serverName, ids));
+                    cacheIfComplete(serverName, ids);
+                    Utils.Log.info("Successfully " + (existingCategory != null ? "updated" : "created") + " channels for server: " + serverName);
+
+                });
     }
 
-    private void createNewCategory(String serverName) {
-        guild.createCategory(serverName).queue(category -> {
-            try {
-                TextChannel chatLogs = getOrCreateChannel(category, "chat-logs");
-                TextChannel commands = getOrCreateChannel(category, "commands");
-                TextChannel joinLeave = getOrCreateChannel(category, "join-leave");
+    private void cacheIfComplete(String serverName, ChannelCache.Entry ids) {
+        if (ids.chat() != 0 && ids.commands() != 0 && ids.joinLeave() != 0
+                && (ids.alerts() != 0 || configManager.getWatchlist().isEmpty())) {
+            channelCache.put(serverName, ids);
+        }
+    }
 
-                serverChannels.put(serverName, new ServerChannels(chatLogs, commands, joinLeave));
+    @Override
+    public void reconfigure(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (current.batching() && previous.batchFlushMillis() != current.batchFlushMillis()) {
+            batcher.scheduleFlush(tasks, current.batchFlushMillis());
+        }
+        if (previous.watchlist().isEmpty() != current.watchlist().isEmpty()) {
+            tasks.execute(this::updateAlertChannels);
+        }
+    }
 
-                // Mark as completed
-                serversBeingCreated.remove(serverName);
-                initializedServers.add(serverName);
+    /**
+     * Creates the alerts channel of every resolved server once the watchlist is turned on, and stops posting to them
+     * once it is turned off; the channels themselves are left in Discord. The other channels keep their targets.
+     */
+    private void updateAlertChannels() {
+        JDA jda = this.jda;
+        if (jda == null) return;
+
+        boolean needsAlerts = !configManager.getWatchlist().isEmpty();
+        serverChannels.forEach((serverName, channels) -> {
+            if (needsAlerts == (channels.alerts() != null)) return;
+
+            if (!needsAlerts) {
+                replaceAlerts(serverName, channels, 0);
+                return;
+            }
 
-                Utils.Log.info("Successfully created category and channels for server: " + serverName);
-            } catch (Exception e) {
-                serversBeingCreated.remove(serverName);
-                Utils.Log.warning("Failed to create channels for " + serverName + ": " + e.getMessage());
+            Category category = jda.getCategoryById(channels.ids().category());
+            if (category == null) {
+                invalidate(channels.ids().category());
+                return;
             }
-        }, error -> {
-            serversBeingCreated.remove(serverName);
-            Utils.Log.warning("Failed to create category for " + serverName + ": " + error.getMessage());
+            getOrCreateChannel(category, "alerts").thenAccept(alerts -> {
+                if (alerts != null) replaceAlerts(serverName, channels, alerts.getIdLong());
+            });
         });
     }
 
-    private void updateExistingCategory(Category category, String serverName) {
-        try {
-            TextChannel chatLogs = getOrCreateChannel(category, "chat-logs");
-            TextChannel commands = getOrCreateChannel(category, "commands");
-            TextChannel joinLeave = getOrCreateChannel(category, "join-leave");
-
-            serverChannels.put(serverName, new ServerChannels(chatLogs, commands, joinLeave));
+    private void replaceAlerts(String serverName, ServerChannels channels, long alertsId) {
+        ChannelCache.Entry old = channels.ids();
+        ChannelCache.Entry ids = new ChannelCache.Entry(old.category(), old.chat(), old.commands(), old.joinLeave(), alertsId);
+        ServerChannels updated = new ServerChannels(ids, channels.backlog(), channels.chat(), channels.commands(),
+                channels.joinLeave(), alertsId != 0 ? target(serverName + "/alerts", alertsId) : null);
 
-            Utils.Log.info("Successfully updated channels for existing server: " + serverName);
-        } catch (Exception e) {
-            Utils.Log.warning("Failed to update channels for " + serverName + ": " + e.getMessage());
+        // Skipped if the server's channels were resolved again in the meantime
+        if (serverChannels.replace(serverName, channels, updated)) {
+            cacheIfComplete(serverName, ids);
         }
     }
 
+    private CompletableFuture<ChannelCache.Entry> resolveChannels(Category category) {
+        CompletableFuture<TextChannel> chatLogs = getOrCreateChannel(category, "chat-logs");
+        CompletableFuture<TextChannel> commands = getOrCreateChannel(category, "commands");
+        CompletableFuture<TextChannel> joinLeave = getOrCreateChannel(category, "join-leave");
+        CompletableFuture<TextChannel> alerts = configManager.getWatchlist().isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : getOrCreateChannel(category, "alerts");
+
+        return CompletableFuture.allOf(chatLogs, commands, joinLeave, alerts)
+                .thenApply(ignored -> new ChannelCache.Entry(category.getIdLong(),
+                        idOf(chatLogs.join()), idOf(commands.join()), idOf(joinLeave.join()), idOf(alerts.join())));
+    }
+
+    private static long idOf(TextChannel channel) {
+        return channel != null ? channel.getIdLong() : 0;
+    }
 
-    private TextChannel getOrCreateChannel(Category category, String channelName) {
+    private CompletableFuture<TextChannel> getOrCreateChannel(Category category, String channelName) {
         return category.getTextChannels().stream()
                 .filter(channel -> channel.getName().equalsIgnoreCase(channelName))
                 .findFirst()
+                .map(CompletableFuture::completedFuture)
                 .orElseGet(() -> createChannel(category, channelName));
     }
 
-    private TextChannel createChannel(Category category, String name) {
-        try {
-            String topic = switch (name) {
-                case "chat-logs" -> "Player chat logs - Automatically created by flennn Logger";
-                case "commands" -> "Player command logs - Automatically created by flennn Logger";
-                case "join-leave" -> "Player join/leave logs - Automatically created by flennn Logger";
-                default -> "Automatically created by flennn Logger";
-            };
+    private CompletableFuture<TextChannel> createChannel(Category category, String name) {
+        String topic = switch (name) {
+            case "chat-logs" -> "Player chat logs - Automatically created by flennn Logger";
+            case "commands" -> "Player command logs - Automatically created by flennn Logger";
+            case "join-leave" -> "Player join/leave logs - Automatically created by flennn Logger";
+            case "alerts" -> "Watchlist hits in chat and commands - Automatically created by flennn Logger";
+            default -> "Automatically created by flennn Logger";
+        };
 
-            return category.createTextChannel(name)
-                    .setTopic(topic)
-                    .complete();
-        } catch (Exception e) {
-            Utils.Log.warning("Failed to create channel " + name);
-            return null;
-        }
+        return category.createTextChannel(name)
+                .setTopic(topic)
+                .submit()
+                .exceptionally(error -> {
+                    Utils.Log.warning("Failed to create channel " + name);
+                    return null;
+                });
     }
 
-    public void log(String serverName, LogType type, String message) {
-        ServerChannels channels = serverChannels.get(serverName);
+    @Override
+    public void log(LogEvent event, long seq) {
+        ServerChannels channels = serverChannels.get(event.serverName());
         if (channels == null) {
+            if (proxy.getServer(event.serverName()).isPresent()) {
+                spool.defer(seq);
+            } else {
+                spool.ack(seq);
+            }
             return;
         }
 
+        // Called on the pipeline consumer only, so the backlog is drained before this event and nothing overtakes it
+        if (channels.backlog().compareAndSet(true, false)) {
+            replayServer(event.serverName());
+        }
+
         try {
-            TextChannel target = switch (type) {
-                case CHAT -> channels.chat;
-                case COMMAND -> channels.commands;
-                case JOIN_LEAVE -> channels.joinLeave;
-            };
+            LogType type = event.type();
+            EmbedTarget target = channels.target(type);
 
-            if (target != null) {
-                MessageEmbed embed = createEmbed(type, message, serverName);
-                target.sendMessageEmbeds(embed).queue();
+            if (target == null) {
+                spool.defer(seq);
+                return;
             }
-        } catch (Exception ignored) {
-        }
-    }
-
-
-    private MessageEmbed createEmbed(LogType type, String message, String serverName) {
-        EmbedBuilder builder = new EmbedBuilder();
-        String[] parts = message.split("\n", 2);
-        String title = parts[0];
-        String description = parts.length > 1 ? parts[1] : "";
-
-        String decoratedDescription = "\n✨ " + description.replace("```diff\n", "📜 **Log Details:**\n```diff\n")
-                + "\n" + getRandomCreativeSymbol();
-
-        switch (type) {
-            case CHAT:
-                builder.setTitle("💬 " + title)
-                        .setColor(Color.BLUE)
-                        .setDescription(decoratedDescription);
-                break;
-
-            case COMMAND:
-                builder.setTitle("⚡ " + title)
-                        .setColor(Color.ORANGE)
-                        .setDescription("🔧 Command Executed:\n" + decoratedDescription);
-                break;
-
-            case JOIN_LEAVE:
-                boolean isJoin = title.contains("JOINED") || title.contains("SERVER JOIN");
-                builder.setTitle(isJoin ? "🚪 " + title : "🚶 " + title)
-                        .setColor(isJoin ? Color.GREEN : Color.RED)
-                        .setDescription(decoratedDescription);
-                break;
-        }
-        builder.setFooter("🏰 Server: " + serverName + " • ⏰ " +
-                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm")),
-                guild.getIconUrl());
-
-        return builder.build();
-    }
-
-    private String getRandomCreativeSymbol() {
-        String[] symbols = {
-                "✧･ﾟ: *✧･ﾟ:* *:･ﾟ✧*:･ﾟ✧･ﾟ:* *:･ﾟ✧*:･ﾟ✧",
-                "♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡",
-                "✿｡.:* ☆:**:.｡✿｡.:* ☆:**:.｡✿｡.:* ☆:**:.｡",
-                "•̩̩͙✩•̩̩͙˚ ｡･:*˚:✧｡･:*:･ﾟ✧*:･ﾟ✧*:･ﾟ✧*:･ﾟ✧",
-                "｡ﾟ•┈୨♡୧┈•ﾟ｡ﾟ•┈୨♡୧┈•ﾟ｡ﾟ•┈୨♡୧┈•ﾟ｡ﾟ•",
-                "⋆｡°✩⋆｡˚✩⋆｡°✩⋆｡˚✩⋆｡°✩⋆｡˚✩⋆｡°✩⋆｡˚✩",
-                "༺♡༻༺♡༻༺♡༻༺♡༻༺♡༻༺♡༻༺♡༻",
-                "╰┈➤ ❝ ｡.｡.｡.｡.｡.｡.｡.｡.｡ ❞ ➤┈╯",
-                "✦───✿✿✿───✦───✿✿✿───✦───✿✿✿───✦",
-                "╔══ஓ๑♡๑ஓ══╗╔══ஓ๑♡๑ஓ══╗╔══ஓ๑♡๑ஓ══╗",
-                "༉‧₊˚✧༚˚₊‧༉‧₊˚✧༚˚₊‧༉‧₊˚✧༚˚₊‧༉‧₊˚✧༚˚₊‧༉"
-        };
 
-        return symbols[new Random().nextInt(symbols.length)];
+            MessageEmbed embed = renderer.render(event);
+            send(type, target, embed, event, seq);
+
+            if (type == LogType.COMMAND && event.payload() != null) {
+                for (long channelId : configManager.getRules().commandRoutes(event.payload())) {
+                    if (jda.getTextChannelById(channelId) != null) {
+                        EmbedTarget route = routeTargets.computeIfAbsent(channelId,
+                                id -> target("route/" + Long.toUnsignedString(id), id));
+                        send(type, route, embed, null, -1);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            spool.nack(seq);
+            Utils.Log.warning("Failed to log event for " + event.serverName() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void logDigest(EventDigest.Summary summary) {
+        ServerChannels channels = serverChannels.get(summary.serverName());
+        EmbedTarget target = channels != null ? channels.target(summary.type()) : null;
+        EmbedRenderer renderer = this.renderer;
+
+        if (target == null || renderer == null) {
+            Utils.Log.warning("No " + summary.type() + " channel for " + summary.serverName() + " yet, dropping digest");
+            return;
+        }
+        send(summary.type(), target, renderer.renderDigest(summary), null, -1);
+    }
+
+    @Override
+    public void logAlert(LogEvent event, List<String> hits) {
+        metrics.recordWatchlistHit();
+
+        ServerChannels channels = serverChannels.get(event.serverName());
+        EmbedRenderer renderer = this.renderer;
+        if (channels == null || channels.alerts() == null || renderer == null) {
+            Utils.Log.warning("No alerts channel for " + event.serverName() + " yet, dropping watchlist alert");
+            return;
+        }
+        batcher.sendAlert(channels.alerts(), renderer.renderAlert(event, hits));
+    }
+
+    private ServerChannels channelsFor(String serverName, ChannelCache.Entry ids) {
+        return new ServerChannels(ids, new AtomicBoolean(true),
+                ids.chat() != 0 ? target(serverName + "/" + LogType.CHAT, ids.chat()) : null,
+                ids.commands() != 0 ? target(serverName + "/" + LogType.COMMAND, ids.commands()) : null,
+                ids.joinLeave() != 0 ? target(serverName + "/" + LogType.JOIN_LEAVE, ids.joinLeave()) : null,
+                ids.alerts() != 0 ? target(serverName + "/alerts", ids.alerts()) : null);
+    }
+
+    /**
+     * The channel as seen by every bot session, sharded by server name and log type.
+     */
+    private EmbedTarget target(String shardKey, long channelId) {
+        return ShardedTarget.of(shardKey, bots.stream().map(bot -> new ChannelTarget(bot, channelId)).toList(), botHealth);
+    }
+
+    private void send(LogType lane, EmbedTarget target, MessageEmbed embed, LogEvent event, long seq) {
+        if (configManager.IsBatching()) {
+            batcher.add(lane, target, embed, event, seq);
+        } else {
+            batcher.sendNow(lane, target, embed, event, seq);
+        }
     }
 
+
     public enum LogType {
         CHAT, COMMAND, JOIN_LEAVE
     }
 
+    private class GatewayListener extends ListenerAdapter {
+        @Override
+        public void onSessionResume(SessionResumeEvent event) {
+            replayAll.set(true);
+        }
+
+        @Override
+        public void onSessionRecreate(SessionRecreateEvent event) {
+            // Channel events sent while the session was gone are lost; check the rebuilt cache instead
+            tasks.execute(DiscordLogger.this::revalidateChannels);
+            replayAll.set(true);
+        }
+
+        @Override
+        public void onChannelDelete(ChannelDeleteEvent event) {
+            invalidate(event.getChannel().getIdLong());
+        }
+
+        @Override
+        public void onChannelUpdateName(ChannelUpdateNameEvent event) {
+            invalidate(event.getChannel().getIdLong());
+        }
+
+        @Override
+        public void onChannelUpdateParent(ChannelUpdateParentEvent event) {
+            invalidate(event.getChannel().getIdLong());
+        }
+    }
+
+    /**
+     * @param backlog set while events parked before these channels were known may still be waiting in the spool
+     */
     private record ServerChannels(
-            TextChannel chat,
-            TextChannel commands,
-            TextChannel joinLeave
+            ChannelCache.Entry ids,
+            AtomicBoolean backlog,
+            EmbedTarget chat,
+            EmbedTarget commands,
+            EmbedTarget joinLeave,
+            EmbedTarget alerts
     ) {
+        EmbedTarget target(LogType type) {
+            return switch (type) {
+                case CHAT -> chat;
+                case COMMAND -> commands;
+                case JOIN_LEAVE -> joinLeave;
+            };
+        }
+
+        boolean tracks(long channelId) {
+            return ids.category() == channelId
+                    || ids.chat() == channelId
+                    || ids.commands() == channelId
+                    || ids.joinLeave() == channelId
+                    || ids.alerts() != 0 && ids.alerts() == channelId;
+        }
     }
 }
\ No newline at end of file
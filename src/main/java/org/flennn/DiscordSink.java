@@ -0,0 +1,106 @@
+package org.flennn;
+
+import java.util.List;
+
+/**
+ * The Discord side of the pipeline: every event is written to the spool first and then handed to the current
+ * {@link LogDelivery}, which acks it once Discord accepted it. Spooled events left over from the last run are
+ * replayed before anything new, and later replays run on the consumer thread too, ahead of the next live event.
+ * <p>
+ * Events absorbed by the {@link EventDigest} skip the spool; only their periodic summary is posted.
+ * <p>
+ * Chat and commands are scanned against the watchlist here, once per event, so replays of failed or shed
+ * messages don't raise the alert again.
+ */
+public class DiscordSink implements LogSink {
+    private final EventSpool spool;
+    private final EventDigest digest;
+    private final ConfigManager configManager;
+    private volatile LogDelivery delivery;
+
+    public DiscordSink(EventSpool spool, LogDelivery delivery, EventDigest digest, ConfigManager configManager) {
+        this.spool = spool;
+        this.delivery = delivery;
+        this.digest = digest;
+        this.configManager = configManager;
+    }
+
+    /**
+     * Switches delivery for every event not yet handed off. Queued events go to the new delivery.
+     */
+    public void setDelivery(LogDelivery delivery) {
+        this.delivery = delivery;
+    }
+
+    @Override
+    public String name() {
+        return "discord";
+    }
+
+    @Override
+    public void start() {
+        spool.replayPending((event, seq) -> delivery.log(event, seq));
+    }
+
+    /**
+     * Posts the digests whose interval has passed.
+     */
+    public void sweepDigests() {
+        digest.sweep(this::postDigest);
+    }
+
+    /**
+     * Posts every open digest. Call after the pipeline has drained, before delivery shuts down.
+     */
+    public void flushDigests() {
+        digest.flush(this::postDigest);
+    }
+
+    private void postDigest(EventDigest.Summary summary) {
+        delivery.logDigest(summary);
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        List<String> hits = event.kind() == LogEvent.Kind.CHAT || event.kind() == LogEvent.Kind.COMMAND
+                ? configManager.getWatchlist().scan(event.payload())
+                : List.of();
+
+        // Watchlist hits are never folded into a digest
+        if (hits.isEmpty() && digest.absorb(event)) return;
+
+        LogDelivery delivery = this.delivery;
+        replayDue(delivery);
+        try {
+            delivery.log(event, spool.append(event));
+        } catch (Exception e) {
+            Utils.Log.warning("Failed to deliver log event for " + event.serverName() + ": " + e.getMessage());
+        }
+
+        if (!hits.isEmpty()) {
+            try {
+                delivery.logAlert(event, hits);
+            } catch (Exception e) {
+                Utils.Log.warning("Failed to post watchlist alert for " + event.serverName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void idle() {
+        replayDue(delivery);
+    }
+
+    private static void replayDue(LogDelivery delivery) {
+        try {
+            delivery.replayDue();
+        } catch (Exception e) {
+            Utils.Log.warning("Failed to replay spooled events: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void flush() {
+        spool.sync();
+    }
+}
@@ -0,0 +1,157 @@
+package org.flennn;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects embeds per target and sends them as multi-embed messages on flush,
+ * so a busy channel costs one REST call per flush window instead of one per event.
+ * Messages then wait in their log type's lane of the {@link LaneScheduler} for a send slot.
+ * Also owns what happens once Discord answers: spool acks and delivery metrics.
+ */
+public class EmbedBatcher {
+    static final int MAX_EMBEDS_PER_MESSAGE = 10;
+    static final int MAX_MESSAGE_LENGTH = MessageEmbed.EMBED_MAX_LENGTH_BOT;
+
+    private final Map<String, TargetBatch> batches = new ConcurrentHashMap<>();
+    private final EventSpool spool;
+    private final LogMetrics metrics;
+    private final LaneScheduler scheduler;
+    private Future<?> flushTask;
+
+    /**
+     * @param senders the number of bots sending in parallel, each with its own {@code max-in-flight}
+     */
+    public EmbedBatcher(EventSpool spool, LogMetrics metrics, ConfigManager configManager, int senders) {
+        this.spool = spool;
+        this.metrics = metrics;
+        this.scheduler = new LaneScheduler(configManager, metrics, senders);
+    }
+
+    /**
+     * @param lane  the log type whose lane the target's messages wait in
+     * @param event the event to count as delivered once Discord accepts the message, or null for copies
+     */
+    public void add(DiscordLogger.LogType lane, EmbedTarget target, MessageEmbed embed, LogEvent event, long seq) {
+        batches.computeIfAbsent(target.key(), key -> new TargetBatch(lane, target)).entries.add(new Entry(embed, event, seq));
+    }
+
+    /**
+     * Queues a single embed for sending right away, bypassing the batch.
+     */
+    public void sendNow(DiscordLogger.LogType lane, EmbedTarget target, MessageEmbed embed, LogEvent event, long seq) {
+        send(lane, target, List.of(new Entry(embed, event, seq)));
+    }
+
+    /**
+     * Sends a watchlist alert ahead of all queued log messages. Alerts are copies, so nothing is acked for them.
+     */
+    public void sendAlert(EmbedTarget target, MessageEmbed embed) {
+        scheduler.submitUrgent(new Message(target, List.of(new Entry(embed, null, -1))));
+    }
+
+    /**
+     * Flushes every {@code intervalMillis} on the given group, replacing the previous schedule, so the interval can
+     * change without losing what is batched.
+     */
+    public synchronized void scheduleFlush(PluginScheduler.Group tasks, long intervalMillis) {
+        if (flushTask != null) flushTask.cancel(false);
+        flushTask = tasks.repeat(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void flush() {
+        batches.values().forEach(this::flush);
+    }
+
+    private void flush(TargetBatch batch) {
+        List<Entry> message = new ArrayList<>(MAX_EMBEDS_PER_MESSAGE);
+        int length = 0;
+
+        Entry entry;
+        while ((entry = batch.entries.poll()) != null) {
+            int embedLength = entry.embed.getLength();
+
+            if (message.size() == MAX_EMBEDS_PER_MESSAGE || length + embedLength > MAX_MESSAGE_LENGTH) {
+                send(batch.lane, batch.target, message);
+                message = new ArrayList<>(MAX_EMBEDS_PER_MESSAGE);
+                length = 0;
+            }
+
+            message.add(entry);
+            length += embedLength;
+        }
+
+        send(batch.lane, batch.target, message);
+    }
+
+    private void send(DiscordLogger.LogType lane, EmbedTarget target, List<Entry> entries) {
+        if (entries.isEmpty()) return;
+
+        scheduler.submit(lane, new Message(target, entries));
+    }
+
+    private final class Message implements LaneScheduler.Job {
+        private final EmbedTarget target;
+        private final List<Entry> entries;
+
+        Message(EmbedTarget target, List<Entry> entries) {
+            this.target = target;
+            this.entries = entries;
+        }
+
+        @Override
+        public void run(Runnable done) {
+            List<MessageEmbed> embeds = entries.stream().map(Entry::embed).toList();
+            try {
+                target.send(embeds, () -> {
+                    done.run();
+                    entries.forEach(EmbedBatcher.this::delivered);
+                }, error -> {
+                    done.run();
+                    failed(target, entries, error);
+                });
+            } catch (Exception e) {
+                done.run();
+                failed(target, entries, e);
+            }
+        }
+
+        /**
+         * Shed messages stay unacknowledged in the spool and come back with the next failed-event replay.
+         */
+        @Override
+        public void shed() {
+            entries.forEach(entry -> spool.defer(entry.seq));
+        }
+    }
+
+    private void delivered(Entry entry) {
+        spool.ack(entry.seq);
+        if (entry.event != null) {
+            metrics.recordDelivered(entry.event);
+        }
+    }
+
+    private void failed(EmbedTarget target, List<Entry> entries, Throwable error) {
+        metrics.recordRestFailure();
+        entries.forEach(entry -> spool.nack(entry.seq));
+        Utils.Log.warning("Failed to send " + entries.size() + " embeds to " + target.name() + ": " + error.getMessage());
+    }
+
+    private record Entry(MessageEmbed embed, LogEvent event, long seq) {
+    }
+
+    private record TargetBatch(DiscordLogger.LogType lane, EmbedTarget target, Queue<Entry> entries) {
+        TargetBatch(DiscordLogger.LogType lane, EmbedTarget target) {
+            this(lane, target, new ConcurrentLinkedQueue<>());
+        }
+    }
+}
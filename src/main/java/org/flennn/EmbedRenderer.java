@@ -0,0 +1,248 @@
+package org.flennn;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.awt.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns {@link LogEvent}s into Discord embeds using templates compiled once at class load.
+ * The footer shows when the event happened, not when it was delivered, to the minute. Footers for the latest minute
+ * are cached per server; older ones, e.g. for events replayed from the spool, are built on demand.
+ */
+public class EmbedRenderer {
+    private static final DateTimeFormatter FOOTER_TIME = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter REPEAT_TIME = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String[] SYMBOLS = {
+            "✧･ﾟ: *✧･ﾟ:* *:･ﾟ✧*:･ﾟ✧･ﾟ:* *:･ﾟ✧*:･ﾟ✧",
+            "♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡ ♡",
+            "✿｡.:* ☆:**:.｡✿｡.:* ☆:**:.｡✿｡.:* ☆:**:.｡",
+            "•̩̩͙✩•̩̩͙˚ ｡･:*˚:✧｡･:*:･ﾟ✧*:･ﾟ✧*:･ﾟ✧*:･ﾟ✧",
+            "｡ﾟ•┈୨♡୧┈•ﾟ｡ﾟ•┈୨♡୧┈•ﾟ｡ﾟ•┈୨♡୧┈•ﾟ｡ﾟ•",
+            "⋆｡°✩⋆｡˚✩⋆｡°✩⋆｡˚✩⋆｡°✩⋆｡˚✩⋆｡°✩⋆｡˚✩",
+            "༺♡༻༺♡༻༺♡༻༺♡༻༺♡༻༺♡༻༺♡༻",
+            "╰┈➤ ❝ ｡.｡.｡.｡.｡.｡.｡.｡.｡ ❞ ➤┈╯",
+            "✦───✿✿✿───✦───✿✿✿───✦───✿✿✿───✦",
+            "╔══ஓ๑♡๑ஓ══╗╔══ஓ๑♡๑ஓ══╗╔══ஓ๑♡๑ஓ══╗",
+            "༉‧₊˚✧༚˚₊‧༉‧₊˚✧༚˚₊‧༉‧₊˚✧༚˚₊‧༉‧₊˚✧༚˚₊‧༉"
+    };
+
+    private static final Map<LogEvent.Kind, Layout> LAYOUTS = new EnumMap<>(Map.of(
+            LogEvent.Kind.CHAT, new Layout(Color.BLUE,
+                    Template.compile("💬 **{name}** in {server}"),
+                    Template.compile("\n✨ 📜 **Log Details:**\n```diff\n"
+                            + "+ Message: {payload}\n+ UUID: {uuid}\n+ IP: {ip}\n+ Client: {client}\n```\n")),
+            LogEvent.Kind.COMMAND, new Layout(Color.ORANGE,
+                    Template.compile("⚡ **{name}** executed command"),
+                    Template.compile("🔧 Command Executed:\n\n✨ 📜 **Log Details:**\n```diff\n"
+                            + "+ Command: /{payload}\n+ Server: {server}\n+ IP: {ip}\n+ UUID: {uuid}\n+ Client: {client}\n```\n")),
+            LogEvent.Kind.JOIN, new Layout(Color.GREEN,
+                    Template.compile("🚪 **{name}** joined"),
+                    Template.compile("\n✨ 📜 **Log Details:**\n```diff\n"
+                            + "+ UUID: {uuid}\n+ IP: {ip}\n+ Client: {client}\n```\n")),
+            LogEvent.Kind.LEAVE, new Layout(Color.RED,
+                    Template.compile("🚶 **{name}** left"),
+                    Template.compile("\n✨ 📜 **Log Details:**\n```diff\n"
+                            + "+ Time Connected: {payload}\n+ Last Server: {server}\n+ UUID: {uuid}\n+ IP: {ip}\n+ Client: {client}\n```\n"))
+    ));
+
+    private static final Layout LINKED_JOIN = new Layout(Color.GREEN,
+            Template.compile("🚪 **{name}** joined"),
+            Template.compile("\n✨ 📜 **Log Details:**\n```diff\n"
+                    + "+ UUID: {uuid}\n+ IP: {ip}\n+ Client: {client}\n- Linked Accounts: {payload}\n```\n"));
+
+    private final String iconUrl;
+    private volatile FooterCache footers = new FooterCache(-1, new ConcurrentHashMap<>());
+
+    public EmbedRenderer(String iconUrl) {
+        this.iconUrl = iconUrl;
+    }
+
+    public MessageEmbed render(LogEvent event) {
+        Layout layout = event.kind() == LogEvent.Kind.JOIN && event.payload() != null ? LINKED_JOIN : LAYOUTS.get(event.kind());
+        StringBuilder text = new StringBuilder(384);
+
+        layout.title.appendTo(text, event);
+        if (event.isFirstJoin()) text.append(" for the first time 🆕");
+        String title = text.toString();
+
+        text.setLength(0);
+        layout.description.appendTo(text, event);
+        if (event.repeats() > 0) {
+            text.append("🔁 **Repeated ").append(event.repeats()).append(event.repeats() == 1 ? " more time** " : " more times** ")
+                    .append("from ").append(REPEAT_TIME.format(Instant.ofEpochMilli(event.firstTimestamp())))
+                    .append(" to ").append(REPEAT_TIME.format(Instant.ofEpochMilli(event.timestamp()))).append('\n');
+        }
+        text.append(SYMBOLS[ThreadLocalRandom.current().nextInt(SYMBOLS.length)]);
+
+        return new EmbedBuilder()
+                .setTitle(title)
+                .setColor(layout.color)
+                .setDescription(text)
+                .setFooter(footer(event.serverName(), event.timestamp()), iconUrl)
+                .build();
+    }
+
+    /**
+     * Alert for a chat message or command that matched the watchlist.
+     */
+    public MessageEmbed renderAlert(LogEvent event, List<String> hits) {
+        StringBuilder text = new StringBuilder(384);
+        text.append(event.kind() == LogEvent.Kind.COMMAND ? "⚡ Command" : "💬 Chat").append(" by **")
+                .append(event.playerName()).append("** in ").append(event.serverName()).append("\n```diff\n- ");
+        if (event.kind() == LogEvent.Kind.COMMAND) text.append('/');
+        appendEscaped(text, event.payload() != null ? event.payload() : "");
+        text.append("\n```\n🎯 **Matched:** ");
+
+        for (int i = 0; i < hits.size(); i++) {
+            if (i > 0) text.append(", ");
+            text.append('`');
+            appendEscaped(text, hits.get(i));
+            text.append('`');
+        }
+        text.append("\n🆔 ").append(event.playerId());
+
+        return new EmbedBuilder()
+                .setTitle("🚨 Watchlist hit")
+                .setColor(Color.MAGENTA)
+                .setDescription(text)
+                .setFooter(footer(event.serverName(), event.timestamp()), iconUrl)
+                .build();
+    }
+
+    /**
+     * Summary of the events a server's digest absorbed since the last one.
+     */
+    public MessageEmbed renderDigest(EventDigest.Summary summary) {
+        StringBuilder text = new StringBuilder(384);
+        text.append("⏰ ").append(REPEAT_TIME.format(Instant.ofEpochMilli(summary.from())))
+                .append(" – ").append(REPEAT_TIME.format(Instant.ofEpochMilli(summary.to()))).append("\n\n");
+
+        switch (summary.type()) {
+            case JOIN_LEAVE -> text.append("🚪 **Joins:** ").append(summary.count(LogEvent.Kind.JOIN))
+                    .append("\n🚶 **Leaves:** ").append(summary.count(LogEvent.Kind.LEAVE)).append('\n');
+            case COMMAND -> text.append("⚡ **Commands:** ").append(summary.count(LogEvent.Kind.COMMAND)).append('\n');
+            case CHAT -> text.append("💬 **Messages:** ").append(summary.count(LogEvent.Kind.CHAT)).append('\n');
+        }
+        text.append("👥 **Players:** ").append(summary.players()).append(summary.playersCapped() ? "+" : "").append('\n');
+
+        if (!summary.top().isEmpty()) {
+            text.append(summary.type() == DiscordLogger.LogType.COMMAND ? "\n🔝 **Top commands:**\n" : "\n🔝 **Most active:**\n");
+            for (EventDigest.Ranked entry : summary.top()) {
+                text.append("`");
+                if (summary.type() == DiscordLogger.LogType.COMMAND) text.append('/');
+                appendEscaped(text, entry.name());
+                text.append("` × ").append(entry.count()).append('\n');
+            }
+        }
+
+        String title = switch (summary.type()) {
+            case CHAT -> "📊 Chat digest";
+            case COMMAND -> "📊 Command digest";
+            case JOIN_LEAVE -> "📊 Join/leave digest";
+        };
+
+        return new EmbedBuilder()
+                .setTitle(title)
+                .setColor(Color.GRAY)
+                .setDescription(text)
+                .setFooter(footer(summary.serverName(), summary.to()), iconUrl)
+                .build();
+    }
+
+    private String footer(String serverName, long timestamp) {
+        long minute = timestamp / MINUTE_MILLIS;
+        FooterCache cache = footers;
+
+        if (minute < cache.minute) {
+            return footerText(serverName, minute);
+        }
+        if (minute > cache.minute) {
+            cache = new FooterCache(minute, new ConcurrentHashMap<>());
+            footers = cache;
+        }
+
+        return cache.byServer.computeIfAbsent(serverName, name -> footerText(name, minute));
+    }
+
+    private static String footerText(String serverName, long minute) {
+        return "🏰 Server: " + serverName + " • ⏰ " + FOOTER_TIME.format(Instant.ofEpochMilli(minute * MINUTE_MILLIS));
+    }
+
+    /**
+     * Escapes backticks so user text can't close the surrounding code block.
+     */
+    static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            out.append(c == '`' ? '\'' : c);
+        }
+    }
+
+    private record FooterCache(long minute, Map<String, String> byServer) {
+    }
+
+    private record Layout(Color color, Template title, Template description) {
+    }
+
+    private enum Field {
+        NAME, SERVER, UUID, IP, CLIENT, PAYLOAD;
+
+        void appendTo(StringBuilder out, LogEvent event) {
+            switch (this) {
+                case NAME -> out.append(event.playerName());
+                case SERVER -> out.append(event.serverName());
+                case UUID -> out.append(event.playerId());
+                case IP -> {
+                    out.append(event.ip() != null ? event.ip() : "Unknown");
+                    if (event.location() != null) out.append(" (").append(event.location()).append(')');
+                }
+                case CLIENT -> out.append(event.client() != null ? event.client() : "Unknown");
+                case PAYLOAD -> appendEscaped(out, event.payload() != null ? event.payload() : "");
+            }
+        }
+    }
+
+    /**
+     * A text pattern with {@code {field}} placeholders, split into literals and fields once.
+     */
+    private record Template(String[] literals, Field[] fields) {
+        static Template compile(String pattern) {
+            List<String> literals = new ArrayList<>();
+            List<Field> fields = new ArrayList<>();
+
+            int start = 0;
+            int open;
+            while ((open = pattern.indexOf('{', start)) >= 0) {
+                int close = pattern.indexOf('}', open);
+                literals.add(pattern.substring(start, open));
+                fields.add(Field.valueOf(pattern.substring(open + 1, close).toUpperCase(Locale.ROOT)));
+                start = close + 1;
+            }
+            literals.add(pattern.substring(start));
+
+            return new Template(literals.toArray(String[]::new), fields.toArray(Field[]::new));
+        }
+
+        void appendTo(StringBuilder out, LogEvent event) {
+            for (int i = 0; i < fields.length; i++) {
+                out.append(literals[i]);
+                fields[i].appendTo(out, event);
+            }
+            out.append(literals[fields.length]);
+        }
+    }
+}
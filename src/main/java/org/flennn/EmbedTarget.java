@@ -0,0 +1,35 @@
+package org.flennn;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Somewhere embeds can be posted: a bot-visible text channel or a channel webhook.
+ */
+public interface EmbedTarget {
+
+    /**
+     * Stable identity used to batch embeds per destination.
+     */
+    String key();
+
+    /**
+     * Human-readable destination for log messages.
+     */
+    String name();
+
+    /**
+     * False while this destination knows it can't send right now, e.g. its session is disconnected
+     * or it is waiting out a long rate limit.
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Posts up to 10 embeds as one message. Exactly one of the callbacks runs once Discord answers.
+     */
+    void send(List<MessageEmbed> embeds, Runnable onSuccess, Consumer<Throwable> onFailure);
+}
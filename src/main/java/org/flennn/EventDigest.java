@@ -0,0 +1,190 @@
+package org.flennn;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Digest mode for servers configured under {@code rules.digest-types}: instead of one Discord message per event,
+ * events of a digested type are counted per server and posted as one summary when the digest interval has passed.
+ * The archive and database still receive every event.
+ * <p>
+ * A digest keeps counters per event kind, the set of players involved and per-command (or, for chat, per-player)
+ * counts for the top list. First joins are never digested, and {@link DiscordSink} keeps watchlist hits out;
+ * both are posted right away as usual.
+ */
+public class EventDigest {
+    private static final int TOP_ENTRIES = 5;
+    private static final int MAX_TRACKED_NAMES = 1024;
+    private static final int MAX_TRACKED_PLAYERS = 100_000;
+    private static final LogEvent.Kind[] KINDS = LogEvent.Kind.values();
+
+    private final Map<Key, Window> windows = new ConcurrentHashMap<>();
+    private final ConfigManager configManager;
+    private final LogMetrics metrics;
+
+    public EventDigest(ConfigManager configManager, LogMetrics metrics) {
+        this.configManager = configManager;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Counts the event into its server's digest. Returns false if it must be posted on its own.
+     */
+    public boolean absorb(LogEvent event) {
+        if (!configManager.getRules().digests(event.serverName(), event.type())) return false;
+        if (event.isFirstJoin()) return false;
+
+        Key key = new Key(event.serverName(), event.type());
+        // A window closed by a concurrent sweep refuses the event; start the next one
+        while (!windows.computeIfAbsent(key, ignored -> new Window(event.timestamp())).add(event)) {
+            Thread.onSpinWait();
+        }
+
+        metrics.recordDigested(event.type());
+        return true;
+    }
+
+    /**
+     * Closes and posts every digest whose interval has passed.
+     */
+    public void sweep(Consumer<Summary> post) {
+        long cutoff = System.currentTimeMillis() - configManager.getDigestIntervalMillis();
+        windows.forEach((key, window) -> {
+            if (window.startedAt <= cutoff) close(key, window, post);
+        });
+    }
+
+    /**
+     * Closes and posts every open digest, e.g. on shutdown.
+     */
+    public void flush(Consumer<Summary> post) {
+        windows.forEach((key, window) -> close(key, window, post));
+    }
+
+    private void close(Key key, Window window, Consumer<Summary> post) {
+        // Removed first so new events start the next window; ones that raced in still land in this one
+        windows.remove(key, window);
+        Summary summary = window.close(key);
+        if (summary == null) return;
+
+        try {
+            post.accept(summary);
+        } catch (Exception e) {
+            Utils.Log.warning("Failed to post digest for " + key.serverName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * What happened on one server for one log type between {@code from} and {@code to}.
+     *
+     * @param counts  events per {@link LogEvent.Kind} ordinal, repeats included
+     * @param players distinct players, at most {@value EventDigest#MAX_TRACKED_PLAYERS} unless {@code playersCapped}
+     * @param top     most frequent commands, or most active players for chat, highest first
+     */
+    public record Summary(String serverName, DiscordLogger.LogType type, long from, long to, int[] counts, int players,
+                          boolean playersCapped, List<Ranked> top) {
+
+        public int count(LogEvent.Kind kind) {
+            return counts[kind.ordinal()];
+        }
+    }
+
+    public record Ranked(String name, int count) {
+    }
+
+    private record Key(String serverName, DiscordLogger.LogType type) {
+    }
+
+    private static final class Window {
+        final long startedAt;
+        private final int[] counts = new int[KINDS.length];
+        private final Set<UUID> players = new HashSet<>();
+        private final Map<String, int[]> names = new HashMap<>();
+        private boolean playersCapped;
+        private long lastAt;
+        private boolean closed;
+
+        Window(long startedAt) {
+            this.startedAt = startedAt;
+            this.lastAt = startedAt;
+        }
+
+        synchronized boolean add(LogEvent event) {
+            if (closed) return false;
+
+            int occurrences = 1 + event.repeats();
+            counts[event.kind().ordinal()] += occurrences;
+            lastAt = Math.max(lastAt, event.timestamp());
+
+            if (event.playerId() != null) {
+                if (players.size() < MAX_TRACKED_PLAYERS) {
+                    players.add(event.playerId());
+                } else if (!players.contains(event.playerId())) {
+                    playersCapped = true;
+                }
+            }
+
+            String name = switch (event.kind()) {
+                case COMMAND -> commandName(event.payload());
+                case CHAT -> event.playerName();
+                case JOIN, LEAVE -> null;
+            };
+            if (name != null) {
+                int[] count = names.get(name);
+                if (count != null) {
+                    count[0] += occurrences;
+                } else if (names.size() < MAX_TRACKED_NAMES) {
+                    names.put(name, new int[]{occurrences});
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Marks the window closed and summarizes it, or returns null if it is already closed.
+         */
+        synchronized Summary close(Key key) {
+            if (closed) return null;
+            closed = true;
+
+            return new Summary(key.serverName, key.type, startedAt, lastAt, counts.clone(), players.size(), playersCapped,
+                    top());
+        }
+
+        private List<Ranked> top() {
+            List<Ranked> top = new ArrayList<>(TOP_ENTRIES + 1);
+            names.forEach((name, count) -> {
+                int at = top.size();
+                while (at > 0 && top.get(at - 1).count() < count[0]) at--;
+                if (at < TOP_ENTRIES) {
+                    top.add(at, new Ranked(name, count[0]));
+                    if (top.size() > TOP_ENTRIES) top.remove(TOP_ENTRIES);
+                }
+            });
+            return top;
+        }
+
+        /**
+         * First word of the command line, lower-cased and without a {@code namespace:} prefix.
+         */
+        private static String commandName(String command) {
+            if (command == null) return null;
+
+            int start = 0;
+            int end = command.indexOf(' ');
+            if (end < 0) end = command.length();
+            int namespace = command.lastIndexOf(':', end - 1);
+            if (namespace >= 0) start = namespace + 1;
+
+            return start < end ? command.substring(start, end).toLowerCase(Locale.ROOT) : null;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package org.flennn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands events from the Velocity event threads to a dedicated consumer thread through a bounded ring buffer,
+ * so handlers never wait on Discord.
+ * <p>
+ * The consumer feeds the primary sink (Discord) and fans every event out to the other sinks. Each of those has its
+ * own buffer and thread, and drops its newest events when it falls behind, so a slow sink never holds up the rest.
+ */
+public class EventPipeline {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final EventRingBuffer<LogEvent> buffer;
+    private final LogSink primary;
+    private final List<SinkConsumer> sinks = new ArrayList<>();
+    private volatile OverflowPolicy policy;
+    private volatile long blockTimeoutNanos;
+    private final Thread consumer;
+
+    private final LongAdder droppedOldest = new LongAdder();
+    private final LongAdder droppedNewest = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile boolean consumerParked;
+    private long lastReportedDrops;
+    private long lastDropReport = System.nanoTime();
+
+    public EventPipeline(LogSink primary, List<LogSink> sinks, ConfigManager configManager) {
+        this.primary = primary;
+        this.buffer = new EventRingBuffer<>(configManager.getPipelineCapacity());
+        reconfigure(configManager);
+
+        for (LogSink sink : sinks) {
+            this.sinks.add(new SinkConsumer(sink, configManager.getPipelineCapacity()));
+        }
+
+        this.consumer = new Thread(this::drainLoop, "ProxyLogger-EventPipeline");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Applies the overflow settings from the current config. The capacity is fixed for the pipeline's lifetime.
+     */
+    public void reconfigure(ConfigManager configManager) {
+        this.policy = OverflowPolicy.fromConfig(configManager.getPipelineOverflowPolicy());
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(configManager.getPipelineBlockTimeoutMillis());
+    }
+
+    public void publish(LogEvent event) {
+        if (!buffer.offer(event) && !handleOverflow(event)) {
+            return;
+        }
+
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private boolean handleOverflow(LogEvent event) {
+        switch (policy) {
+            case DROP_NEWEST -> {
+                droppedNewest.increment();
+                return false;
+            }
+            case DROP_OLDEST -> {
+                while (!buffer.offer(event)) {
+                    if (buffer.poll() != null) {
+                        droppedOldest.increment();
+                    }
+                }
+                return true;
+            }
+            case BLOCK -> {
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                do {
+                    LockSupport.unpark(consumer);
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    if (buffer.offer(event)) {
+                        return true;
+                    }
+                } while (System.nanoTime() < deadline);
+
+                timedOut.increment();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A sink that throws must not take the only consumer thread down with it, or the buffer fills up for good.
+     */
+    private void drainLoop() {
+        guarded(primary, "start", primary::start);
+
+        while (running || !buffer.isEmpty()) {
+            LogEvent event = buffer.poll();
+
+            if (event == null) {
+                guarded(primary, "go idle", primary::idle);
+                reportDrops();
+                consumerParked = true;
+                if (buffer.isEmpty() && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                consumerParked = false;
+                continue;
+            }
+
+            for (SinkConsumer sink : sinks) {
+                sink.offer(event);
+            }
+            guarded(primary, "write an event", () -> primary.append(event));
+        }
+    }
+
+    private static void guarded(LogSink sink, String action, Runnable call) {
+        try {
+            call.run();
+        } catch (Exception e) {
+            Utils.Log.warning("Log sink " + sink.name() + " failed to " + action + ": " + e.getMessage());
+        }
+    }
+
+    private void reportDrops() {
+        long now = System.nanoTime();
+        if (now - lastDropReport < DROP_REPORT_INTERVAL_NANOS) return;
+        lastDropReport = now;
+
+        long drops = getDroppedCount();
+        if (drops > lastReportedDrops) {
+            Utils.Log.warning("Event pipeline overflowed, " + (drops - lastReportedDrops) + " events dropped in the last minute"
+                    + " (policy: " + policy.name().toLowerCase(Locale.ROOT) + ", capacity: " + buffer.capacity() + ")");
+            lastReportedDrops = drops;
+        }
+
+        for (SinkConsumer sink : sinks) {
+            sink.reportDrops();
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(consumer);
+
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // A sink is single-threaded; flushing it while the consumer still writes would race it
+        if (consumer.isAlive()) {
+            Utils.Log.warning("Event pipeline did not drain within 5 seconds, skipping the final flush of " + primary.name());
+        } else {
+            guarded(primary, "flush", primary::flush);
+        }
+
+        for (SinkConsumer sink : sinks) {
+            sink.shutdown();
+        }
+    }
+
+    public List<SinkConsumer> getSinks() {
+        return List.copyOf(sinks);
+    }
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    public long getDroppedOldest() {
+        return droppedOldest.sum();
+    }
+
+    public long getDroppedNewest() {
+        return droppedNewest.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedOldest.sum() + droppedNewest.sum() + timedOut.sum();
+    }
+
+    /**
+     * Runs one secondary sink on its own thread behind its own ring buffer.
+     */
+    public static final class SinkConsumer {
+        private final LogSink sink;
+        private final EventRingBuffer<LogEvent> buffer;
+        private final Thread thread;
+        private final LongAdder dropped = new LongAdder();
+        private volatile boolean running = true;
+        private volatile boolean parked;
+        private long lastReportedDrops;
+
+        SinkConsumer(LogSink sink, int capacity) {
+            this.sink = sink;
+            this.buffer = new EventRingBuffer<>(capacity);
+            this.thread = new Thread(this::drainLoop, "ProxyLogger-Sink-" + sink.name());
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void offer(LogEvent event) {
+            if (!buffer.offer(event)) {
+                dropped.increment();
+                return;
+            }
+
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void drainLoop() {
+            guarded(sink, "start", sink::start);
+
+            while (running || !buffer.isEmpty()) {
+                LogEvent event = buffer.poll();
+
+                if (event == null) {
+                    guarded(sink, "go idle", sink::idle);
+                    parked = true;
+                    if (buffer.isEmpty() && running) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    parked = false;
+                    continue;
+                }
+
+                guarded(sink, "write an event", () -> sink.append(event));
+            }
+        }
+
+        /**
+         * Called from the pipeline consumer only.
+         */
+        void reportDrops() {
+            long drops = dropped.sum();
+            if (drops > lastReportedDrops) {
+                Utils.Log.warning("Log sink " + sink.name() + " fell behind, " + (drops - lastReportedDrops) + " events dropped");
+                lastReportedDrops = drops;
+            }
+        }
+
+        void shutdown() {
+            running = false;
+            LockSupport.unpark(thread);
+
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (thread.isAlive()) {
+                Utils.Log.warning("Log sink " + sink.name() + " did not drain within 5 seconds, skipping its final flush");
+            } else {
+                guarded(sink, "flush", sink::flush);
+            }
+        }
+
+        public String getName() {
+            return sink.name();
+        }
+
+        public int getQueueDepth() {
+            return buffer.size();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+    }
+
+    public enum OverflowPolicy {
+        DROP_OLDEST, DROP_NEWEST, BLOCK;
+
+        public static OverflowPolicy fromConfig(String value) {
+            try {
+                return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                Utils.Log.warning("Unknown pipeline overflow policy '" + value + "', using drop-oldest");
+                return DROP_OLDEST;
+            }
+        }
+    }
+}
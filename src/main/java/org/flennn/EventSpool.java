@@ -0,0 +1,427 @@
+package org.flennn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead spool for log events. Every event is appended to a memory-mapped segment file
+ * before it is handed to Discord and acknowledged once Discord accepts it, so undelivered events
+ * survive outages and restarts and are replayed in sequence order.
+ * <p>
+ * Segment records are laid out as {@code [int length][int crc32][long seq][payload]}; a zero length
+ * marks the end of the written region. The acknowledged watermark lives in a small mapped file next
+ * to the segments, and segments entirely below it are deleted.
+ * <p>
+ * An event that fails delivery {@code maxAttempts} times is dropped, so one message Discord will never accept
+ * cannot pin the watermark. Likewise, an event still deferred {@code maxDeferMillis} after its first deferral is
+ * dropped, so a server whose channels never resolve doesn't hold back compaction. When the segments outgrow {@code maxBytes}, the oldest segment is dropped with
+ * whatever it still holds.
+ * <p>
+ * A spool from {@link #unspooled()} keeps nothing: {@link #append} returns -1, so events are delivered once and never
+ * retried. A closed spool behaves the same way.
+ */
+public class EventSpool {
+    private static final int RECORD_HEADER = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final long WATERMARK_CHECK = 0x5350_4F4F_4C41_434BL;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final int maxAttempts;
+    private final long maxDeferMillis;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final NavigableMap<Long, Location> pending = new TreeMap<>();
+    private final NavigableSet<Long> failed = new TreeSet<>();
+    private final Map<Long, Integer> attempts = new HashMap<>();
+    /** Time of the first deferral per parked event. */
+    private final Map<Long, Long> deferredSince = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private final MappedByteBuffer watermarkBuffer;
+
+    private long nextSeq;
+    private long watermark;
+    private boolean watermarkDirty;
+    private long dropped;
+    private boolean closed;
+
+    private EventSpool() {
+        this.directory = null;
+        this.segmentSize = 0;
+        this.maxBytes = 0;
+        this.maxAttempts = 0;
+        this.maxDeferMillis = 0;
+        this.watermarkBuffer = null;
+        this.closed = true;
+    }
+
+    /**
+     * A spool that keeps nothing, for when the spool directory can't be opened.
+     */
+    public static EventSpool unspooled() {
+        return new EventSpool();
+    }
+
+    public EventSpool(Path dataFolder, int segmentSize, long maxBytes, int maxAttempts, long maxDeferMillis) throws IOException {
+        this.directory = dataFolder.resolve("spool");
+        this.segmentSize = segmentSize;
+        this.maxBytes = Math.max(maxBytes, segmentSize * 2L);
+        this.maxAttempts = maxAttempts;
+        this.maxDeferMillis = maxDeferMillis;
+        Files.createDirectories(directory);
+
+        try (FileChannel channel = FileChannel.open(directory.resolve("ack.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            watermarkBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES * 2);
+        }
+
+        long stored = watermarkBuffer.getLong(0);
+        watermark = (stored ^ WATERMARK_CHECK) == watermarkBuffer.getLong(Long.BYTES) ? stored : 0;
+        nextSeq = watermark + 1;
+
+        recover();
+        compact();
+        enforceLimit();
+
+        if (!pending.isEmpty()) {
+            Utils.Log.info("Spool contains " + pending.size() + " undelivered events, replaying.");
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+
+        for (Path file : files) {
+            Segment segment = Segment.open(file, segmentSize);
+            ByteBuffer buffer = segment.buffer;
+
+            while (buffer.remaining() >= RECORD_HEADER) {
+                int offset = buffer.position();
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + RECORD_HEADER + length > buffer.limit()) break;
+
+                int checksum = buffer.getInt(offset + Integer.BYTES);
+                long seq = buffer.getLong(offset + Integer.BYTES * 2);
+                if (checksum != checksum(buffer, offset, length)) {
+                    Utils.Log.warning("Spool segment " + file.getFileName() + " has a torn record at " + offset + ", truncating.");
+                    break;
+                }
+
+                segment.lastSeq = seq;
+                if (seq > watermark) {
+                    pending.put(seq, new Location(segment, offset));
+                }
+                nextSeq = Math.max(nextSeq, seq + 1);
+                buffer.position(offset + RECORD_HEADER + length);
+            }
+
+            buffer.putInt(buffer.position(), 0);
+            segments.addLast(segment);
+        }
+    }
+
+    /**
+     * Appends the event and returns its sequence number, or -1 if it could not be spooled.
+     */
+    public synchronized long append(LogEvent event) {
+        if (closed) return -1;
+
+        byte[] payload = LogEventCodec.encode(event);
+        int size = RECORD_HEADER + payload.length;
+        if (size + Integer.BYTES > segmentSize) {
+            return -1;
+        }
+
+        try {
+            Segment segment = segments.peekLast();
+            if (segment == null || segment.buffer.remaining() < size + Integer.BYTES) {
+                segment = Segment.open(directory.resolve(String.format("%020d", nextSeq) + SEGMENT_SUFFIX), segmentSize);
+                segments.addLast(segment);
+                enforceLimit();
+            }
+
+            long seq = nextSeq++;
+            ByteBuffer buffer = segment.buffer;
+            int offset = buffer.position();
+
+            buffer.position(offset + RECORD_HEADER);
+            buffer.put(payload);
+            buffer.putLong(offset + Integer.BYTES * 2, seq);
+            buffer.putInt(offset + Integer.BYTES, checksum(buffer, offset, payload.length));
+            buffer.putInt(buffer.position(), 0);
+            buffer.putInt(offset, payload.length);
+
+            segment.lastSeq = seq;
+            pending.put(seq, new Location(segment, offset));
+            return seq;
+        } catch (IOException e) {
+            Utils.Log.warning("Failed to spool log event: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    public synchronized void ack(long seq) {
+        if (seq < 0 || pending.remove(seq) == null) return;
+        failed.remove(seq);
+        attempts.remove(seq);
+        deferredSince.remove(seq);
+
+        long newWatermark = pending.isEmpty() ? nextSeq - 1 : pending.firstKey() - 1;
+        if (newWatermark > watermark) {
+            storeWatermark(newWatermark);
+            compact();
+            if (closed) watermarkBuffer.force();
+        }
+    }
+
+    /**
+     * Marks a failed delivery attempt. The event is replayed later, or dropped once it has failed
+     * {@code maxAttempts} times.
+     */
+    public synchronized void nack(long seq) {
+        if (seq < 0 || !pending.containsKey(seq)) return;
+
+        if (attempts.merge(seq, 1, Integer::sum) >= maxAttempts) {
+            Utils.Log.warning("Dropping spooled event " + seq + " after " + maxAttempts + " failed delivery attempts");
+            dropped++;
+            ack(seq);
+            return;
+        }
+        failed.add(seq);
+    }
+
+    /**
+     * Parks an event that was not attempted, e.g. because its channel is not known yet or its lane was full.
+     * Unlike {@link #nack}, this does not count towards {@code maxAttempts}; the event is dropped instead once it has
+     * been deferred for {@code maxDeferMillis}.
+     */
+    public synchronized void defer(long seq) {
+        if (seq < 0 || !pending.containsKey(seq)) return;
+
+        long now = System.currentTimeMillis();
+        if (now - deferredSince.computeIfAbsent(seq, key -> now) >= maxDeferMillis) {
+            Utils.Log.warning("Dropping spooled event " + seq + " after it was deferred for " + (maxDeferMillis / 60_000) + " minutes");
+            dropped++;
+            ack(seq);
+            return;
+        }
+        failed.add(seq);
+    }
+
+    /**
+     * Re-delivers every unacknowledged event in sequence order. Used once at startup.
+     */
+    public void replayPending(SpoolConsumer consumer) {
+        replay(consumer, false);
+    }
+
+    /**
+     * Re-delivers events whose delivery failed or was deferred, in sequence order.
+     */
+    public void replayFailed(SpoolConsumer consumer) {
+        replay(consumer, true);
+    }
+
+    /**
+     * Re-delivers the failed and deferred events that match the filter, in sequence order. The others stay parked.
+     */
+    public void replayFailed(Predicate<LogEvent> filter, SpoolConsumer consumer) {
+        List<Long> sequences;
+        synchronized (this) {
+            sequences = new ArrayList<>(failed);
+        }
+
+        for (long seq : sequences) {
+            LogEvent event = read(seq);
+            if (event == null || !filter.test(event)) continue;
+
+            synchronized (this) {
+                // Acked or replayed by someone else in the meantime
+                if (!failed.remove(seq)) continue;
+            }
+            consumer.accept(event, seq);
+        }
+    }
+
+    private void replay(SpoolConsumer consumer, boolean failedOnly) {
+        List<Long> sequences;
+        synchronized (this) {
+            sequences = new ArrayList<>(failedOnly ? failed : pending.keySet());
+            if (failedOnly) failed.clear();
+        }
+
+        for (long seq : sequences) {
+            LogEvent event = read(seq);
+            if (event != null) {
+                consumer.accept(event, seq);
+            }
+        }
+    }
+
+    private synchronized LogEvent read(long seq) {
+        Location location = pending.get(seq);
+        if (location == null) return null;
+
+        ByteBuffer buffer = location.segment.buffer;
+        int length = buffer.getInt(location.offset);
+        byte[] payload = new byte[length];
+        buffer.get(location.offset + RECORD_HEADER, payload);
+
+        try {
+            return LogEventCodec.decode(payload);
+        } catch (RuntimeException e) {
+            Utils.Log.warning("Dropping unreadable spooled event " + seq + ": " + e.getMessage());
+            ack(seq);
+            return null;
+        }
+    }
+
+    /**
+     * Flushes records written and the watermark moved since the last sync to disk. Called periodically, so a busy
+     * spool is forced once per interval rather than once per event.
+     */
+    public synchronized void sync() {
+        if (closed) return;
+
+        syncSegments();
+        if (watermarkDirty) {
+            watermarkBuffer.force();
+            watermarkDirty = false;
+        }
+    }
+
+    /**
+     * Syncs the segments and the watermark and stops spooling new events. Call once delivery has been shut down;
+     * acks for sends still in flight are forced to disk as they arrive.
+     */
+    public synchronized void close() {
+        if (closed) return;
+
+        syncSegments();
+        watermarkBuffer.force();
+        watermarkDirty = false;
+        closed = true;
+    }
+
+    private void syncSegments() {
+        for (Segment segment : segments) {
+            if (segment.dirty()) {
+                segment.buffer.force();
+                segment.syncedPosition = segment.buffer.position();
+            }
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Events dropped after too many failed attempts, after being deferred too long, or because the spool outgrew its size limit.
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    private void storeWatermark(long newWatermark) {
+        watermark = newWatermark;
+        watermarkBuffer.putLong(0, watermark);
+        watermarkBuffer.putLong(Long.BYTES, watermark ^ WATERMARK_CHECK);
+        watermarkDirty = true;
+    }
+
+    /**
+     * Drops the oldest segments, undelivered events included, until the spool fits in {@code maxBytes}.
+     */
+    private void enforceLimit() {
+        while (segments.size() > 1 && (long) segments.size() * segmentSize > maxBytes) {
+            Segment oldest = segments.peekFirst();
+            NavigableMap<Long, Location> lost = pending.headMap(oldest.lastSeq, true);
+            int count = lost.size();
+            if (count > 0) {
+                Utils.Log.warning("Spool exceeded " + (maxBytes >> 20) + " MB, dropping " + count + " undelivered events");
+                failed.removeAll(lost.keySet());
+                attempts.keySet().removeAll(lost.keySet());
+                deferredSince.keySet().removeAll(lost.keySet());
+                lost.clear();
+                dropped += count;
+            }
+
+            if (oldest.lastSeq > watermark) storeWatermark(oldest.lastSeq);
+            int before = segments.size();
+            compact();
+            if (segments.size() == before) return;
+        }
+    }
+
+    private void compact() {
+        while (segments.size() > 1 && segments.peekFirst().lastSeq <= watermark) {
+            Segment segment = segments.peekFirst();
+            try {
+                Files.deleteIfExists(segment.file);
+                segments.removeFirst();
+            } catch (IOException e) {
+                // Still mapped on some platforms; retried on the next compaction
+                return;
+            }
+        }
+    }
+
+    private int checksum(ByteBuffer buffer, int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset + Integer.BYTES * 2, Long.BYTES + length));
+        return (int) crc.getValue();
+    }
+
+    @FunctionalInterface
+    public interface SpoolConsumer {
+        void accept(LogEvent event, long seq);
+    }
+
+    private record Location(Segment segment, int offset) {
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private long lastSeq;
+        private int syncedPosition;
+
+        private Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path file, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        boolean dirty() {
+            return buffer.position() != syncedPosition;
+        }
+    }
+}
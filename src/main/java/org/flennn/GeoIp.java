@@ -0,0 +1,130 @@
+package org.flennn;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Offline address enrichment from the MaxMind-format databases listed under {@code geoip.databases}. Each database
+ * contributes the fields it has: country from a Country or City database, the network from an ASN database, and
+ * VPN, hosting, Tor and proxy flags from an Anonymous IP database.
+ * <p>
+ * Results, including misses, are kept in a bounded LRU cache keyed by address, so a wave of reconnects after a
+ * restart or a backend crash reads each database once per address.
+ */
+public class GeoIp {
+    private final List<MmdbReader> databases;
+    private final Map<InetAddress, String> cache;
+
+    private GeoIp(List<MmdbReader> databases, int cacheSize) {
+        this.databases = databases;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<InetAddress, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Opens the configured databases, skipping missing or unreadable ones. Returns null if GeoIP is disabled or no
+     * database could be opened.
+     */
+    public static GeoIp open(Path dataFolder, ConfigManager configManager) {
+        if (!configManager.IsGeoIp()) return null;
+
+        List<MmdbReader> databases = new ArrayList<>();
+        for (String name : configManager.getGeoIpDatabases()) {
+            Path file = dataFolder.resolve(name);
+            if (!Files.isRegularFile(file)) {
+                Utils.Log.warning("GeoIP database " + name + " not found in the plugin folder, skipping it");
+                continue;
+            }
+
+            try {
+                MmdbReader reader = MmdbReader.open(file);
+                databases.add(reader);
+                Utils.Log.info(" 🌍 Loaded GeoIP database " + name + " (" + reader.databaseType() + ")");
+            } catch (IOException e) {
+                Utils.Log.severe(" ❌ Failed to open GeoIP database " + name + ": " + e.getMessage());
+            }
+        }
+
+        return databases.isEmpty() ? null : new GeoIp(List.copyOf(databases), configManager.getGeoIpCacheSize());
+    }
+
+    /**
+     * A short description of where the address is, e.g. {@code DE · AS3320 Deutsche Telekom AG · VPN}, or null if
+     * nothing is known about it.
+     */
+    public String describe(InetAddress address) {
+        if (address == null || address.isLoopbackAddress() || address.isAnyLocalAddress()
+                || address.isSiteLocalAddress() || address.isLinkLocalAddress()) {
+            return null;
+        }
+
+        synchronized (cache) {
+            if (cache.containsKey(address)) return cache.get(address);
+        }
+
+        String description = lookup(address);
+        synchronized (cache) {
+            cache.put(address, description);
+        }
+        return description;
+    }
+
+    private String lookup(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        String country = null;
+        Object asn = null;
+        String organization = null;
+        List<String> flags = new ArrayList<>(2);
+
+        for (MmdbReader database : databases) {
+            Map<?, ?> record;
+            try {
+                record = database.lookup(bytes);
+            } catch (IOException e) {
+                Utils.Log.warning("GeoIP lookup in " + database.databaseType() + " failed: " + e.getMessage());
+                continue;
+            }
+            if (record == null) continue;
+
+            if (country == null) country = isoCode(record.get("country"));
+            if (country == null) country = isoCode(record.get("registered_country"));
+            if (asn == null) asn = record.get("autonomous_system_number");
+            if (organization == null && record.get("autonomous_system_organization") instanceof String name) {
+                organization = name;
+            }
+
+            flag(record, "is_anonymous_vpn", "VPN", flags);
+            flag(record, "is_hosting_provider", "Hosting", flags);
+            flag(record, "is_tor_exit_node", "Tor", flags);
+            flag(record, "is_public_proxy", "Proxy", flags);
+            flag(record, "is_residential_proxy", "Residential proxy", flags);
+        }
+
+        StringJoiner out = new StringJoiner(" · ");
+        if (country != null) out.add(country);
+        if (asn != null || organization != null) {
+            out.add(asn != null ? "AS" + asn + (organization != null ? " " + organization : "") : organization);
+        }
+        flags.forEach(out::add);
+        return out.length() > 0 ? out.toString() : null;
+    }
+
+    private static String isoCode(Object country) {
+        return country instanceof Map<?, ?> map && map.get("iso_code") instanceof String code ? code : null;
+    }
+
+    private static void flag(Map<?, ?> record, String key, String label, List<String> flags) {
+        if (Boolean.TRUE.equals(record.get(key)) && !flags.contains(label)) flags.add(label);
+    }
+}
@@ -0,0 +1,197 @@
+package org.flennn;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes every event as a row of an embedded H2 database in the plugin folder, so moderation tools can query the
+ * history with SQL. Rows are added to a prepared-statement batch and committed once the batch is full, the commit
+ * interval has passed, or the pipeline went quiet.
+ * <p>
+ * The database is opened in H2's auto-server mode, so other tools can connect to the same file while the proxy runs.
+ * If the database fails, the pending batch is dropped and the connection is reopened after a pause; the archive
+ * and Discord still have those events.
+ */
+public class JdbcSink implements LogSink {
+    private static final String DRIVER = "org.h2.Driver";
+    private static final long RECONNECT_DELAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int MAX_SERVER_LENGTH = 64;
+    private static final int MAX_TEXT_LENGTH = 256;
+    private static final int MAX_PAYLOAD_LENGTH = 4096;
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS log_events (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                event_time BIGINT NOT NULL,
+                first_time BIGINT NOT NULL,
+                repeats INT NOT NULL,
+                kind VARCHAR(16) NOT NULL,
+                server VARCHAR(64) NOT NULL,
+                player_uuid UUID,
+                player_name VARCHAR(32),
+                ip VARCHAR(64),
+                location VARCHAR(256),
+                client VARCHAR(256),
+                payload VARCHAR(4096),
+                flags INT DEFAULT 0 NOT NULL
+            )""";
+    /** Columns added since the table was first created. */
+    private static final String[] ADD_COLUMNS = {
+            "ALTER TABLE log_events ADD COLUMN IF NOT EXISTS location VARCHAR(256)",
+            "ALTER TABLE log_events ADD COLUMN IF NOT EXISTS flags INT DEFAULT 0 NOT NULL"
+    };
+    private static final String[] CREATE_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS log_events_player ON log_events (player_uuid, event_time)",
+            "CREATE INDEX IF NOT EXISTS log_events_server ON log_events (server, event_time)"
+    };
+    private static final String INSERT = "INSERT INTO log_events "
+            + "(event_time, first_time, repeats, kind, server, player_uuid, player_name, ip, location, client, payload, flags) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final String url;
+    private final int batchSize;
+    private final long commitIntervalNanos;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private int pending;
+    private long lastCommit = System.nanoTime();
+    private long retryAt = System.nanoTime();
+
+    public JdbcSink(Path dataFolder, ConfigManager configManager) {
+        this.url = "jdbc:h2:file:" + dataFolder.resolve(configManager.getDatabaseFile()).toAbsolutePath() + ";AUTO_SERVER=TRUE";
+        this.batchSize = configManager.getDatabaseBatchSize();
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(configManager.getDatabaseCommitIntervalMillis());
+    }
+
+    @Override
+    public String name() {
+        return "database";
+    }
+
+    @Override
+    public void start() {
+        if (open()) {
+            Utils.Log.info(" 🗄 Logging to database " + url);
+        }
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        if (insert == null && !open()) return;
+
+        try {
+            insert.setLong(1, event.timestamp());
+            insert.setLong(2, event.firstTimestamp());
+            insert.setInt(3, event.repeats());
+            insert.setString(4, event.kind().name());
+            insert.setString(5, truncate(event.serverName(), MAX_SERVER_LENGTH));
+            insert.setObject(6, event.playerId(), Types.OTHER);
+            insert.setString(7, event.playerName());
+            insert.setString(8, event.ip());
+            insert.setString(9, truncate(event.location(), MAX_TEXT_LENGTH));
+            insert.setString(10, truncate(event.client(), MAX_TEXT_LENGTH));
+            insert.setString(11, truncate(event.payload(), MAX_PAYLOAD_LENGTH));
+            insert.setInt(12, event.flags());
+            insert.addBatch();
+            pending++;
+
+            if (pending >= batchSize || System.nanoTime() - lastCommit >= commitIntervalNanos) {
+                commit();
+            }
+        } catch (SQLException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void idle() {
+        if (pending == 0) return;
+
+        try {
+            commit();
+        } catch (SQLException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        idle();
+    }
+
+    /**
+     * Commits what is left and closes the database. Call after the pipeline has shut down.
+     */
+    public void close() {
+        flush();
+        disconnect();
+    }
+
+    private void commit() throws SQLException {
+        insert.executeBatch();
+        connection.commit();
+        pending = 0;
+        lastCommit = System.nanoTime();
+    }
+
+    private boolean open() {
+        if (System.nanoTime() - retryAt < 0) return false;
+
+        try {
+            Driver driver = (Driver) Class.forName(DRIVER, true, JdbcSink.class.getClassLoader())
+                    .getDeclaredConstructor()
+                    .newInstance();
+
+            // Connect through the driver directly; DriverManager can't see drivers loaded by the plugin class loader
+            connection = driver.connect(url, new Properties());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+                for (String column : ADD_COLUMNS) {
+                    statement.execute(column);
+                }
+                for (String index : CREATE_INDEXES) {
+                    statement.execute(index);
+                }
+            }
+            connection.setAutoCommit(false);
+            insert = connection.prepareStatement(INSERT);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            Utils.Log.severe(" ❌ Database driver " + DRIVER + " is not available: " + e.getMessage());
+        } catch (SQLException e) {
+            Utils.Log.severe(" ❌ Failed to open database: " + e.getMessage());
+        }
+
+        disconnect();
+        retryAt = System.nanoTime() + RECONNECT_DELAY_NANOS;
+        return false;
+    }
+
+    private void fail(SQLException e) {
+        Utils.Log.warning("Database write failed, dropping " + pending + " pending rows: " + e.getMessage());
+        disconnect();
+        retryAt = System.nanoTime() + RECONNECT_DELAY_NANOS;
+    }
+
+    private void disconnect() {
+        pending = 0;
+        try {
+            if (connection != null) connection.close();
+        } catch (SQLException ignored) {
+        }
+        connection = null;
+        insert = null;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
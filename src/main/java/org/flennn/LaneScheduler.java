@@ -0,0 +1,295 @@
+package org.flennn;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides which Discord message goes out next when more are waiting than may be in flight. Each log type has its own
+ * FIFO lane, and free send slots are handed out by deficit round robin weighted by the configured shares, so a chat
+ * flood can't push command and join/leave messages to the back of one shared queue.
+ * <p>
+ * A lane that grows past its limit sheds its oldest messages; they go back to the spool and are retried later.
+ * The default settings give chat the smallest share and the smallest limit, so chat is delayed and shed first.
+ * Watchlist alerts skip the lanes altogether and take the next free slot.
+ * <p>
+ * {@code max-in-flight} is per sender: with several bots sharing the channels, each brings its own rate limits, so the
+ * cap is multiplied by the number of bots.
+ */
+public class LaneScheduler {
+    private static final DiscordLogger.LogType[] TYPES = DiscordLogger.LogType.values();
+    private static final int MAX_URGENT = 500;
+
+    private final ConfigManager configManager;
+    private final LogMetrics metrics;
+    private final int senders;
+    private final Lane[] lanes = new Lane[TYPES.length];
+    private final ArrayDeque<Job> urgent = new ArrayDeque<>();
+
+    private int inFlight;
+    private int cursor;
+    private boolean draining;
+
+    public LaneScheduler(ConfigManager configManager, LogMetrics metrics, int senders) {
+        this.configManager = configManager;
+        this.metrics = metrics;
+        this.senders = Math.max(1, senders);
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * A message waiting for a send slot.
+     */
+    public interface Job {
+
+        /**
+         * Sends the message; {@code done} must run exactly once when Discord answered or the send failed.
+         */
+        void run(Runnable done);
+
+        /**
+         * Gives the message up without sending it.
+         */
+        void shed();
+    }
+
+    public void submit(DiscordLogger.LogType type, Job job) {
+        Settings settings = configManager.getLaneSettings();
+        List<Job> shed = new ArrayList<>();
+
+        synchronized (this) {
+            Lane lane = lanes[type.ordinal()];
+            lane.jobs.add(new Queued(job, System.nanoTime()));
+            while (lane.jobs.size() > settings.maxQueued[type.ordinal()]) {
+                shed.add(lane.jobs.poll().job);
+            }
+        }
+
+        for (Job dropped : shed) {
+            metrics.recordShed(type);
+            dropped.shed();
+        }
+        drain();
+    }
+
+    /**
+     * Queues a job ahead of every lane.
+     */
+    public void submitUrgent(Job job) {
+        Job shed = null;
+
+        synchronized (this) {
+            urgent.add(job);
+            if (urgent.size() > MAX_URGENT) shed = urgent.poll();
+        }
+
+        if (shed != null) shed.shed();
+        drain();
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    /**
+     * Starts jobs while slots are free. Only one thread drains at a time; a job that completes while it is being
+     * started, e.g. a send that fails right away, just frees its slot for the running loop to refill, so a run of
+     * failing sends doesn't recurse once per queued job.
+     */
+    private void drain() {
+        synchronized (this) {
+            if (draining) return;
+            draining = true;
+        }
+
+        boolean finished = false;
+        try {
+            while (true) {
+                List<Job> ready;
+                synchronized (this) {
+                    ready = dispatch(configManager.getLaneSettings());
+                    if (ready.isEmpty()) {
+                        draining = false;
+                        finished = true;
+                        return;
+                    }
+                }
+
+                for (Job job : ready) {
+                    Once done = new Once(this::release);
+                    try {
+                        job.run(done);
+                    } catch (Exception e) {
+                        Utils.Log.warning("Failed to start a Discord send: " + e.getMessage());
+                        done.run();
+                    }
+                }
+            }
+        } finally {
+            if (!finished) {
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes as many jobs as there are free slots, recording how long each waited in its lane.
+     */
+    private List<Job> dispatch(Settings settings) {
+        List<Job> ready = List.of();
+        int maxInFlight = settings.maxInFlight * senders;
+
+        while (inFlight < maxInFlight && !urgent.isEmpty()) {
+            if (ready.isEmpty()) ready = new ArrayList<>();
+            ready.add(urgent.poll());
+            inFlight++;
+        }
+
+        while (inFlight < maxInFlight) {
+            int index = next(settings);
+            if (index < 0) break;
+
+            Queued queued = lanes[index].jobs.poll();
+            metrics.recordLaneWait(TYPES[index], (System.nanoTime() - queued.enqueuedAt) / 1_000_000);
+
+            if (ready.isEmpty()) ready = new ArrayList<>();
+            ready.add(queued.job);
+            inFlight++;
+        }
+        return ready;
+    }
+
+    /**
+     * Deficit round robin: the lane under the cursor sends while it has credit, then the cursor moves on and the
+     * next backlogged lane earns its share in credit. Idle lanes don't bank credit.
+     */
+    private int next(Settings settings) {
+        boolean backlogged = false;
+        for (Lane lane : lanes) {
+            if (!lane.jobs.isEmpty()) {
+                backlogged = true;
+            } else {
+                lane.deficit = 0;
+            }
+        }
+        if (!backlogged) return -1;
+
+        while (true) {
+            Lane lane = lanes[cursor];
+            if (!lane.jobs.isEmpty() && lane.deficit >= 1) {
+                lane.deficit--;
+                return cursor;
+            }
+
+            cursor = (cursor + 1) % lanes.length;
+            if (!lanes[cursor].jobs.isEmpty()) {
+                lanes[cursor].deficit += settings.shares[cursor];
+            }
+        }
+    }
+
+    public synchronized int getQueued(DiscordLogger.LogType type) {
+        return lanes[type.ordinal()].jobs.size();
+    }
+
+    private static final class Lane {
+        final ArrayDeque<Queued> jobs = new ArrayDeque<>();
+        int deficit;
+    }
+
+    private record Queued(Job job, long enqueuedAt) {
+    }
+
+    /**
+     * Guards against a target calling back twice, which would free a slot that is still in use.
+     */
+    private static final class Once implements Runnable {
+        private final Runnable action;
+        private boolean done;
+
+        Once(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (done) return;
+                done = true;
+            }
+            action.run();
+        }
+    }
+
+    /**
+     * The {@code lanes} section of config.yml, indexed by {@link DiscordLogger.LogType} ordinal. The arrays are copied
+     * in and out and compared by content, so a settings instance inside a {@link ConfigSnapshot} can't be changed and
+     * two snapshots of the same file are equal. The scheduler reads the fields directly.
+     */
+    public record Settings(int maxInFlight, int[] shares, int[] maxQueued) {
+        private static final int[] DEFAULT_SHARES = {1, 4, 3};
+        private static final int[] DEFAULT_MAX_QUEUED = {200, 2000, 2000};
+
+        public Settings {
+            shares = shares.clone();
+            maxQueued = maxQueued.clone();
+        }
+
+        @Override
+        public int[] shares() {
+            return shares.clone();
+        }
+
+        @Override
+        public int[] maxQueued() {
+            return maxQueued.clone();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Settings settings
+                    && maxInFlight == settings.maxInFlight
+                    && Arrays.equals(shares, settings.shares)
+                    && Arrays.equals(maxQueued, settings.maxQueued);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * maxInFlight + Arrays.hashCode(shares)) + Arrays.hashCode(maxQueued);
+        }
+
+        @Override
+        public String toString() {
+            return "Settings[maxInFlight=" + maxInFlight + ", shares=" + Arrays.toString(shares)
+                    + ", maxQueued=" + Arrays.toString(maxQueued) + "]";
+        }
+
+        static Settings compile(ConfigSnapshot.Reader reader) {
+            int[] shares = Arrays.copyOf(DEFAULT_SHARES, TYPES.length);
+            int[] maxQueued = Arrays.copyOf(DEFAULT_MAX_QUEUED, TYPES.length);
+
+            reader.getSection("lanes.shares").forEach((type, value) -> set(shares, "shares", type, value, 1));
+            reader.getSection("lanes.max-queued").forEach((type, value) -> set(maxQueued, "max-queued", type, value, 1));
+
+            return new Settings(Math.max(1, reader.getInt("lanes.max-in-flight", 8)), shares, maxQueued);
+        }
+
+        private static void set(int[] values, String key, String type, Object value, int min) {
+            try {
+                int index = DiscordLogger.LogType.valueOf(type.trim().replace('-', '_').toUpperCase(Locale.ROOT)).ordinal();
+                values[index] = Math.max(min, Integer.parseInt(String.valueOf(value).trim()));
+            } catch (IllegalArgumentException e) {
+                Utils.Log.warning("Invalid lanes." + key + " entry '" + type + ": " + value + "', ignoring it");
+            }
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package org.flennn;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Local archive of every logged event, stored as rolling segment files of deflate-compressed blocks.
+ * <p>
+ * Each segment {@code <start>.dat} has a companion {@code <start>.idx} with one fixed-size entry per block:
+ * the block offset and length, its time range and a Bloom filter of the player UUIDs it contains.
+ * Queries only inflate the blocks whose time range overlaps and whose filter may contain the player.
+ * <p>
+ * Each segment's overall time range is read from its index at startup and kept up to date while writing, since
+ * coalesced or backlogged events can be older than the segment's start. Whole segments are deleted once all of their
+ * events are older than the retention period, or oldest first while the archive is over its size limit.
+ */
+public class LogArchive implements LogSink {
+    private static final int BLOOM_BITS = 4096;
+    private static final int BLOOM_WORDS = BLOOM_BITS / Long.SIZE;
+    private static final int BLOCK_HEADER = Integer.BYTES * 3;
+    private static final int INDEX_ENTRY = Long.BYTES + Integer.BYTES + Long.BYTES * 2 + Integer.BYTES + BLOOM_WORDS * Long.BYTES;
+    private static final long IDLE_FLUSH_MILLIS = 30_000;
+    private static final long RETENTION_CHECK_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path directory;
+    private final int blockSize;
+    private final long segmentSize;
+    private final long retentionMillis;
+    private final long maxBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+    private final DataOutputStream blockOut = new DataOutputStream(blockBytes);
+    private final List<LogEvent> blockEvents = new ArrayList<>();
+    private final long[] blockBloom = new long[BLOOM_WORDS];
+    private long blockMinTs = Long.MAX_VALUE;
+    private long blockMaxTs = Long.MIN_VALUE;
+    private long blockStartedAt;
+    private long retentionCheckedAt;
+
+    private FileChannel data;
+    private FileChannel index;
+
+    /**
+     * @param retentionDays days to keep events for, or 0 to keep them regardless of age
+     * @param maxBytes      size limit of all segments together, or 0 for none
+     */
+    public LogArchive(Path dataFolder, int blockSize, long segmentSize, int retentionDays, long maxBytes) throws IOException {
+        this.directory = dataFolder.resolve("archive");
+        this.blockSize = blockSize;
+        this.segmentSize = segmentSize;
+        this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(".dat")).sorted().toList();
+        }
+
+        if (!files.isEmpty()) {
+            openSegment(files.get(files.size() - 1));
+        }
+        for (Path file : files) {
+            segments.add(readBounds(file));
+        }
+        enforceRetention();
+    }
+
+    @Override
+    public String name() {
+        return "archive";
+    }
+
+    @Override
+    public synchronized void append(LogEvent event) {
+        try {
+            if (blockEvents.isEmpty()) {
+                blockStartedAt = System.currentTimeMillis();
+            }
+
+            LogEventCodec.write(blockOut, event);
+            blockEvents.add(event);
+            blockMinTs = Math.min(blockMinTs, event.timestamp());
+            blockMaxTs = Math.max(blockMaxTs, event.timestamp());
+            addToBloom(blockBloom, event.playerId());
+
+            if (blockBytes.size() >= blockSize) {
+                flushBlock();
+            }
+        } catch (IOException e) {
+            Utils.Log.warning("Failed to archive log event: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes out the current block if it has been open for a while, so quiet periods still reach disk.
+     */
+    @Override
+    public synchronized void idle() {
+        long now = System.currentTimeMillis();
+        if (!blockEvents.isEmpty() && now - blockStartedAt >= IDLE_FLUSH_MILLIS) {
+            flush();
+        }
+        if (now - retentionCheckedAt >= RETENTION_CHECK_MILLIS) {
+            enforceRetention();
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            flushBlock();
+        } catch (IOException e) {
+            Utils.Log.warning("Failed to flush log archive: " + e.getMessage());
+        }
+    }
+
+    public synchronized void close() {
+        flush();
+        try {
+            if (data != null) data.close();
+            if (index != null) index.close();
+        } catch (IOException e) {
+            Utils.Log.warning("Failed to close log archive: " + e.getMessage());
+        }
+        deflater.end();
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockEvents.isEmpty()) return;
+
+        if (data == null || data.size() >= segmentSize) {
+            long start = segments.isEmpty() ? blockMinTs : Math.max(blockMinTs, segmentStart(segments.get(segments.size() - 1).path()) + 1);
+            Path segment = directory.resolve(String.format("%020d.dat", start));
+            openSegment(segment);
+            segments.add(new Segment(segment, Long.MAX_VALUE, Long.MIN_VALUE));
+            enforceRetention();
+        }
+
+        byte[] raw = blockBytes.toByteArray();
+        byte[] compressed = compress(raw);
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+
+        long offset = data.size();
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER + compressed.length);
+        block.putInt(compressed.length).putInt(raw.length).putInt((int) crc.getValue()).put(compressed).flip();
+        writeFully(data, block, offset);
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY);
+        entry.putLong(offset).putInt(block.capacity()).putLong(blockMinTs).putLong(blockMaxTs).putInt(blockEvents.size());
+        for (long word : blockBloom) {
+            entry.putLong(word);
+        }
+        entry.flip();
+        writeFully(index, entry, index.size());
+
+        int last = segments.size() - 1;
+        segments.set(last, segments.get(last).including(blockMinTs, blockMaxTs));
+
+        blockBytes.reset();
+        blockEvents.clear();
+        Arrays.fill(blockBloom, 0);
+        blockMinTs = Long.MAX_VALUE;
+        blockMaxTs = Long.MIN_VALUE;
+    }
+
+    private void openSegment(Path segment) throws IOException {
+        if (data != null) data.close();
+        if (index != null) index.close();
+
+        data = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(indexPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Drop a partial index entry or a data tail that never made it into the index
+        long entries = index.size() / INDEX_ENTRY;
+        index.truncate(entries * INDEX_ENTRY);
+
+        long dataEnd = 0;
+        if (entries > 0) {
+            ByteBuffer last = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+            index.read(last, (entries - 1) * INDEX_ENTRY);
+            last.flip();
+            dataEnd = last.getLong() + last.getInt();
+        }
+        data.truncate(dataEnd);
+    }
+
+    /**
+     * Reads a segment's overall time range from its index.
+     */
+    private static Segment readBounds(Path segment) throws IOException {
+        Segment bounds = new Segment(segment, Long.MAX_VALUE, Long.MIN_VALUE);
+        Path indexPath = indexPath(segment);
+        if (!Files.exists(indexPath)) return bounds;
+
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long entries = channel.size() / INDEX_ENTRY;
+            ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY * 256);
+            for (long first = 0; first < entries; first += 256) {
+                buffer.clear().limit((int) (Math.min(256, entries - first) * INDEX_ENTRY));
+                readFully(channel, buffer, first * INDEX_ENTRY);
+
+                for (int offset = 0; offset < buffer.limit(); offset += INDEX_ENTRY) {
+                    int times = offset + Long.BYTES + Integer.BYTES;
+                    bounds = bounds.including(buffer.getLong(times), buffer.getLong(times + Long.BYTES));
+                }
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Deletes whole segments, oldest first, that are past the retention period or over the size limit. The segment
+     * being written is always kept.
+     */
+    private void enforceRetention() {
+        retentionCheckedAt = System.currentTimeMillis();
+        long expired = retentionMillis > 0 ? retentionCheckedAt - retentionMillis : Long.MIN_VALUE;
+
+        long total = 0;
+        for (Segment segment : segments) total += segment.bytes();
+
+        int deleted = 0;
+        while (segments.size() > 1) {
+            Segment oldest = segments.get(0);
+            if (oldest.maxTs() >= expired && (maxBytes <= 0 || total <= maxBytes)) break;
+
+            long bytes = oldest.bytes();
+            try {
+                // Index first: a segment without an index is skipped by searches
+                Files.deleteIfExists(indexPath(oldest.path()));
+                Files.deleteIfExists(oldest.path());
+            } catch (IOException e) {
+                Utils.Log.warning("Failed to delete old archive segment " + oldest.path().getFileName() + ": " + e.getMessage());
+                break;
+            }
+            segments.remove(0);
+            total -= bytes;
+            deleted++;
+        }
+
+        if (deleted > 0) {
+            Utils.Log.info("Deleted " + deleted + " old archive segments");
+        }
+    }
+
+    /**
+     * Streams archived events matching the query in chronological order until the visitor returns false.
+     */
+    public void search(Query query, Predicate<LogEvent> visitor) throws IOException {
+        List<Segment> candidates;
+        List<LogEvent> unflushed;
+        synchronized (this) {
+            candidates = new ArrayList<>(segments);
+            unflushed = new ArrayList<>(blockEvents);
+        }
+
+        long[] probe = new long[BLOOM_WORDS];
+        addToBloom(probe, query.playerId());
+
+        for (Segment segment : candidates) {
+            if (segment.maxTs() < query.from() || segment.minTs() > query.to()) continue;
+
+            if (!searchSegment(segment.path(), query, probe, visitor)) return;
+        }
+
+        for (LogEvent event : unflushed) {
+            if (query.matches(event) && !visitor.test(event)) return;
+        }
+    }
+
+    private boolean searchSegment(Path segment, Query query, long[] probe, Predicate<LogEvent> visitor) throws IOException {
+        Path indexPath = indexPath(segment);
+        if (!Files.exists(indexPath)) return true;
+
+        try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ);
+             FileChannel dataChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long entries = indexChannel.size() / INDEX_ENTRY;
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY);
+
+            for (long i = 0; i < entries; i++) {
+                entry.clear();
+                readFully(indexChannel, entry, i * INDEX_ENTRY);
+                entry.flip();
+
+                long offset = entry.getLong();
+                int length = entry.getInt();
+                long minTs = entry.getLong();
+                long maxTs = entry.getLong();
+                entry.getInt();
+
+                if (maxTs < query.from() || minTs > query.to() || !mayContain(entry, probe)) continue;
+
+                ByteBuffer block = ByteBuffer.allocate(length);
+                readFully(dataChannel, block, offset);
+                block.flip();
+
+                if (!visitBlock(block, query, visitor)) return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean visitBlock(ByteBuffer block, Query query, Predicate<LogEvent> visitor) throws IOException {
+        int compressedLength = block.getInt();
+        int rawLength = block.getInt();
+        int checksum = block.getInt();
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block.array(), block.position(), compressedLength);
+            inflater.inflate(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block", e);
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Archive block checksum mismatch");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        while (in.available() > 0) {
+            LogEvent event = LogEventCodec.read(in);
+            if (query.matches(event) && !visitor.test(event)) return false;
+        }
+        return true;
+    }
+
+    private byte[] compress(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    private static void addToBloom(long[] bloom, UUID playerId) {
+        if (playerId == null) return;
+
+        long hash = mix(playerId.getMostSignificantBits() ^ Long.rotateLeft(playerId.getLeastSignificantBits(), 32));
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < 3; i++) {
+            int bit = (h1 + i * h2) & (BLOOM_BITS - 1);
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static boolean mayContain(ByteBuffer entry, long[] probe) {
+        int base = entry.position();
+        for (int i = 0; i < BLOOM_WORDS; i++) {
+            if (probe[i] != 0 && (entry.getLong(base + i * Long.BYTES) & probe[i]) != probe[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - ".dat".length()));
+    }
+
+    private static Path indexPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - ".dat".length()) + ".idx");
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("Unexpected end of archive file");
+            position += read;
+        }
+    }
+
+    /**
+     * A segment file and the time range of the events written to it; empty segments have an inverted range.
+     */
+    private record Segment(Path path, long minTs, long maxTs) {
+        Segment including(long from, long to) {
+            return new Segment(path, Math.min(minTs, from), Math.max(maxTs, to));
+        }
+
+        long bytes() {
+            try {
+                return Files.size(path) + (Files.exists(indexPath(path)) ? Files.size(indexPath(path)) : 0);
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Archive lookup by optional player and inclusive time range.
+     */
+    public record Query(UUID playerId, long from, long to) {
+        public boolean matches(LogEvent event) {
+            return event.timestamp() >= from && event.timestamp() <= to
+                    && (playerId == null || playerId.equals(event.playerId()));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.flennn;
+
+import java.util.List;
+
+/**
+ * Delivers spooled events to Discord. Implementations ack or nack the spool sequence once the outcome is known.
+ */
+public interface LogDelivery {
+
+    /**
+     * @param seq spool sequence of the event, or -1 if it was not spooled
+     */
+    void log(LogEvent event, long seq);
+
+    /**
+     * Posts a digest to the channel of its server and log type. Digests are not spooled; one that can't be posted
+     * is dropped.
+     */
+    void logDigest(EventDigest.Summary summary);
+
+    /**
+     * Posts a watchlist alert for a chat message or command to its server's alerts channel. Called once per event;
+     * alerts are not spooled.
+     */
+    void logAlert(LogEvent event, List<String> hits);
+
+    /**
+     * Replays the spooled events that are due again, e.g. because their channel became available or the retry
+     * interval passed. Called on the pipeline consumer before every live event and whenever it is idle, so a replay
+     * never races newer events.
+     */
+    void replayDue();
+
+    /**
+     * Applies the settings that can change without rebuilding delivery: the batch flush interval and, in bot mode,
+     * whether servers have an alerts channel.
+     */
+    void reconfigure(ConfigSnapshot previous, ConfigSnapshot current);
+
+    void shutdown();
+}
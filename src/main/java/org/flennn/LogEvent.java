@@ -0,0 +1,75 @@
+package org.flennn;
+
+import java.util.UUID;
+
+/**
+ * A single player activity event, published by {@link ActivityListeners} and consumed off the event thread.
+ * Events carry raw fields only; Discord formatting happens in {@link EmbedRenderer}.
+ * <p>
+ * The payload is the chat message, the command line or the session summary for a leave. For a join it lists the
+ * other accounts seen on the player's address (e.g. {@code Alex, Notch +3 more}), or is null if there are none.
+ * {@code location} describes the player's address (country, network, VPN flags) when GeoIP is enabled, else null.
+ * {@code flags} marks events that need special handling, such as {@link #FIRST_JOIN}.
+ * Events collapsed by {@link SpamCoalescer} carry how many repeats they stand for and when the first repeat happened;
+ * {@code timestamp} is then the time of the last repeat.
+ */
+public record LogEvent(
+        Kind kind,
+        String serverName,
+        UUID playerId,
+        String playerName,
+        String ip,
+        String location,
+        String client,
+        String payload,
+        long timestamp,
+        int repeats,
+        long firstTimestamp,
+        int flags
+) {
+    /** A join by an account never seen before on this network. */
+    public static final int FIRST_JOIN = 1;
+
+    public LogEvent(Kind kind, String serverName, UUID playerId, String playerName, String ip, String location,
+                    String client, String payload, long timestamp, int repeats, long firstTimestamp) {
+        this(kind, serverName, playerId, playerName, ip, location, client, payload, timestamp, repeats, firstTimestamp, 0);
+    }
+
+    public LogEvent(Kind kind, String serverName, UUID playerId, String playerName, String ip, String location,
+                    String client, String payload, long timestamp) {
+        this(kind, serverName, playerId, playerName, ip, location, client, payload, timestamp, 0, timestamp, 0);
+    }
+
+    /**
+     * A copy standing for {@code repeats} suppressed repeats of this event between the two timestamps.
+     */
+    public LogEvent repeated(int repeats, long firstTimestamp, long lastTimestamp) {
+        return new LogEvent(kind, serverName, playerId, playerName, ip, location, client, payload, lastTimestamp, repeats,
+                firstTimestamp, flags);
+    }
+
+    public boolean isFirstJoin() {
+        return (flags & FIRST_JOIN) != 0;
+    }
+
+    public DiscordLogger.LogType type() {
+        return kind.type;
+    }
+
+    public enum Kind {
+        CHAT(DiscordLogger.LogType.CHAT),
+        COMMAND(DiscordLogger.LogType.COMMAND),
+        JOIN(DiscordLogger.LogType.JOIN_LEAVE),
+        LEAVE(DiscordLogger.LogType.JOIN_LEAVE);
+
+        private final DiscordLogger.LogType type;
+
+        Kind(DiscordLogger.LogType type) {
+            this.type = type;
+        }
+
+        public DiscordLogger.LogType type() {
+            return type;
+        }
+    }
+}
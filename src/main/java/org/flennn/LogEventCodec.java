@@ -0,0 +1,105 @@
+package org.flennn;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Binary encoding of {@link LogEvent} shared by the on-disk spool and archive.
+ */
+public final class LogEventCodec {
+    private static final int VERSION = 1;
+    private static final LogEvent.Kind[] KINDS = LogEvent.Kind.values();
+
+    private LogEventCodec() {
+    }
+
+    public static byte[] encode(LogEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            write(new DataOutputStream(bytes), event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static LogEvent decode(byte[] data) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(data)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void write(DataOutput out, LogEvent event) throws IOException {
+        out.writeByte(VERSION);
+        out.writeLong(event.timestamp());
+        out.writeByte(event.kind().ordinal());
+        writeString(out, event.serverName());
+
+        UUID playerId = event.playerId();
+        out.writeBoolean(playerId != null);
+        if (playerId != null) {
+            out.writeLong(playerId.getMostSignificantBits());
+            out.writeLong(playerId.getLeastSignificantBits());
+        }
+
+        writeString(out, event.playerName());
+        writeString(out, event.ip());
+        writeString(out, event.client());
+        writeString(out, event.payload());
+        out.writeInt(event.repeats());
+        out.writeLong(event.firstTimestamp());
+        writeString(out, event.location());
+        out.writeInt(event.flags());
+    }
+
+    public static LogEvent read(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported log event version " + version);
+        }
+
+        long timestamp = in.readLong();
+        LogEvent.Kind kind = KINDS[in.readUnsignedByte()];
+        String serverName = readString(in);
+        UUID playerId = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+        String playerName = readString(in);
+        String ip = readString(in);
+        String client = readString(in);
+        String payload = readString(in);
+        int repeats = in.readInt();
+        long firstTimestamp = in.readLong();
+        String location = readString(in);
+        int flags = in.readInt();
+        return new LogEvent(kind, serverName, playerId, playerName, ip, location, client, payload, timestamp,
+                repeats, firstTimestamp, flags);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
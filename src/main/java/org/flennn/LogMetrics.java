@@ -0,0 +1,350 @@
+package org.flennn;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the logging path. Lives for the whole plugin lifetime, so
+ * numbers survive reloads. Every recording method is a {@link LongAdder} increment: contended
+ * updates are striped per thread instead of serializing the event threads on one cache line.
+ */
+public class LogMetrics {
+    private static final DiscordLogger.LogType[] TYPES = DiscordLogger.LogType.values();
+
+    private final LongAdder[] published = adders(TYPES.length);
+    private final LongAdder[] filtered = adders(TYPES.length);
+    private final LongAdder[] coalesced = adders(TYPES.length);
+    private final LongAdder[] digested = adders(TYPES.length);
+    private final LongAdder[] delivered = adders(TYPES.length);
+    private final LongAdder restFailures = new LongAdder();
+    private final LongAdder watchlistHits = new LongAdder();
+    private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+    private final LatencyHistogram[] laneWait = histograms(TYPES.length);
+    private final LongAdder[] shed = adders(TYPES.length);
+    private final long startedAt = System.currentTimeMillis();
+
+    private volatile EventPipeline pipeline;
+    private volatile EventSpool spool;
+
+    /**
+     * Points the queue gauges at the current pipeline; called again whenever the pipeline is rebuilt.
+     */
+    public void bind(EventPipeline pipeline, EventSpool spool) {
+        this.pipeline = pipeline;
+        this.spool = spool;
+    }
+
+    public void recordPublished(DiscordLogger.LogType type) {
+        published[type.ordinal()].increment();
+    }
+
+    public void recordFiltered(DiscordLogger.LogType type) {
+        filtered[type.ordinal()].increment();
+    }
+
+    public void recordCoalesced(DiscordLogger.LogType type) {
+        coalesced[type.ordinal()].increment();
+    }
+
+    public void recordDigested(DiscordLogger.LogType type) {
+        digested[type.ordinal()].increment();
+    }
+
+    /**
+     * Records a Discord acknowledgement, measuring latency from the moment the event was captured.
+     */
+    public void recordDelivered(LogEvent event) {
+        delivered[event.type().ordinal()].increment();
+        deliveryLatency.record(System.currentTimeMillis() - event.timestamp());
+    }
+
+    /**
+     * Records how long a message waited in its lane for a send slot.
+     */
+    public void recordLaneWait(DiscordLogger.LogType type, long millis) {
+        laneWait[type.ordinal()].record(millis);
+    }
+
+    public void recordShed(DiscordLogger.LogType type) {
+        shed[type.ordinal()].increment();
+    }
+
+    public void recordWatchlistHit() {
+        watchlistHits.increment();
+    }
+
+    public void recordRestFailure() {
+        restFailures.increment();
+    }
+
+    public long getPublished(DiscordLogger.LogType type) {
+        return published[type.ordinal()].sum();
+    }
+
+    public long getFiltered(DiscordLogger.LogType type) {
+        return filtered[type.ordinal()].sum();
+    }
+
+    public long getCoalesced(DiscordLogger.LogType type) {
+        return coalesced[type.ordinal()].sum();
+    }
+
+    public long getDigested(DiscordLogger.LogType type) {
+        return digested[type.ordinal()].sum();
+    }
+
+    public long getDelivered(DiscordLogger.LogType type) {
+        return delivered[type.ordinal()].sum();
+    }
+
+    public long getWatchlistHits() {
+        return watchlistHits.sum();
+    }
+
+    public long getRestFailures() {
+        return restFailures.sum();
+    }
+
+    public LatencyHistogram getDeliveryLatency() {
+        return deliveryLatency;
+    }
+
+    public LatencyHistogram getLaneWait(DiscordLogger.LogType type) {
+        return laneWait[type.ordinal()];
+    }
+
+    public long getShed(DiscordLogger.LogType type) {
+        return shed[type.ordinal()].sum();
+    }
+
+    public int getQueueDepth() {
+        EventPipeline current = pipeline;
+        return current != null ? current.getQueueDepth() : 0;
+    }
+
+    public int getSpoolPending() {
+        EventSpool current = spool;
+        return current != null ? current.getPendingCount() : 0;
+    }
+
+    public long getSpoolDropped() {
+        EventSpool current = spool;
+        return current != null ? current.getDroppedCount() : 0;
+    }
+
+    public long getUptimeMillis() {
+        return System.currentTimeMillis() - startedAt;
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(2048);
+
+        counterHeader(out, "proxylogger_events_published_total", "Events captured by the listeners and queued for logging.");
+        for (DiscordLogger.LogType type : TYPES) {
+            sample(out, "proxylogger_events_published_total", "type", label(type), getPublished(type));
+        }
+
+        counterHeader(out, "proxylogger_events_filtered_total", "Events skipped by the configured rules.");
+        for (DiscordLogger.LogType type : TYPES) {
+            sample(out, "proxylogger_events_filtered_total", "type", label(type), getFiltered(type));
+        }
+
+        counterHeader(out, "proxylogger_events_coalesced_total", "Repeated events folded into a single log entry.");
+        for (DiscordLogger.LogType type : TYPES) {
+            sample(out, "proxylogger_events_coalesced_total", "type", label(type), getCoalesced(type));
+        }
+
+        counterHeader(out, "proxylogger_events_digested_total", "Events counted in a periodic digest instead of posted one by one.");
+        for (DiscordLogger.LogType type : TYPES) {
+            sample(out, "proxylogger_events_digested_total", "type", label(type), getDigested(type));
+        }
+
+        counterHeader(out, "proxylogger_events_delivered_total", "Events acknowledged by Discord.");
+        for (DiscordLogger.LogType type : TYPES) {
+            sample(out, "proxylogger_events_delivered_total", "type", label(type), getDelivered(type));
+        }
+
+        EventPipeline current = pipeline;
+        counterHeader(out, "proxylogger_events_dropped_total", "Events dropped because the pipeline was full.");
+        sample(out, "proxylogger_events_dropped_total", "reason", "oldest", current != null ? current.getDroppedOldest() : 0);
+        sample(out, "proxylogger_events_dropped_total", "reason", "newest", current != null ? current.getDroppedNewest() : 0);
+        sample(out, "proxylogger_events_dropped_total", "reason", "timeout", current != null ? current.getTimedOut() : 0);
+
+        counterHeader(out, "proxylogger_watchlist_hits_total", "Chat messages and commands that matched the watchlist.");
+        sample(out, "proxylogger_watchlist_hits_total", null, null, getWatchlistHits());
+
+        counterHeader(out, "proxylogger_rest_failures_total", "Discord REST requests that failed.");
+        sample(out, "proxylogger_rest_failures_total", null, null, getRestFailures());
+
+        gaugeHeader(out, "proxylogger_queue_depth", "Events waiting in the pipeline ring buffer.");
+        sample(out, "proxylogger_queue_depth", null, null, getQueueDepth());
+
+        if (current != null) {
+            gaugeHeader(out, "proxylogger_sink_queue_depth", "Events waiting for a secondary log sink.");
+            for (EventPipeline.SinkConsumer sink : current.getSinks()) {
+                sample(out, "proxylogger_sink_queue_depth", "sink", sink.getName(), sink.getQueueDepth());
+            }
+
+            counterHeader(out, "proxylogger_sink_dropped_total", "Events a secondary log sink dropped because it fell behind.");
+            for (EventPipeline.SinkConsumer sink : current.getSinks()) {
+                sample(out, "proxylogger_sink_dropped_total", "sink", sink.getName(), sink.getDropped());
+            }
+        }
+
+        gaugeHeader(out, "proxylogger_spool_pending", "Spooled events not yet acknowledged by Discord.");
+        sample(out, "proxylogger_spool_pending", null, null, getSpoolPending());
+
+        counterHeader(out, "proxylogger_spool_dropped_total", "Spooled events dropped after too many failed attempts or to stay within the size limit.");
+        sample(out, "proxylogger_spool_dropped_total", null, null, getSpoolDropped());
+
+        counterHeader(out, "proxylogger_lane_shed_total", "Messages pushed back to the spool because their lane was full.");
+        for (DiscordLogger.LogType type : TYPES) {
+            sample(out, "proxylogger_lane_shed_total", "lane", label(type), getShed(type));
+        }
+
+        String latency = "proxylogger_delivery_latency_seconds";
+        histogramHeader(out, latency, "Time from event capture to Discord acknowledgement.");
+        histogram(out, latency, null, deliveryLatency);
+
+        String wait = "proxylogger_lane_wait_seconds";
+        histogramHeader(out, wait, "Time a message waited in its lane for a Discord send slot.");
+        for (DiscordLogger.LogType type : TYPES) {
+            histogram(out, wait, label(type), laneWait[type.ordinal()]);
+        }
+
+        return out.toString();
+    }
+
+    private static void histogramHeader(StringBuilder out, String name, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+    }
+
+    /**
+     * @param lane value of the {@code lane} label, or null for an unlabelled histogram
+     */
+    private static void histogram(StringBuilder out, String name, String lane, LatencyHistogram histogram) {
+        String labels = lane != null ? "lane=\"" + lane + "\"," : "";
+        long[] counts = histogram.snapshot();
+        long cumulative = 0;
+        for (int i = 0; i <= LatencyHistogram.BOUNDS_MILLIS.length; i++) {
+            cumulative += counts[i];
+            String bound = i < LatencyHistogram.BOUNDS_MILLIS.length ? seconds(LatencyHistogram.BOUNDS_MILLIS[i]) : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append("le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+        }
+
+        String suffix = lane != null ? "{lane=\"" + lane + "\"}" : "";
+        out.append(name).append("_sum").append(suffix).append(' ').append(seconds(histogram.getSumMillis())).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ').append(cumulative).append('\n');
+    }
+
+    private static void counterHeader(StringBuilder out, String name, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+    }
+
+    private static void gaugeHeader(StringBuilder out, String name, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+    }
+
+    private static void sample(StringBuilder out, String name, String labelName, String labelValue, long value) {
+        out.append(name);
+        if (labelName != null) {
+            out.append('{').append(labelName).append("=\"").append(labelValue).append("\"}");
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String label(DiscordLogger.LogType type) {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String seconds(long millis) {
+        return BigDecimal.valueOf(millis, 3).stripTrailingZeros().toPlainString();
+    }
+
+    private static LatencyHistogram[] histograms(int count) {
+        LatencyHistogram[] histograms = new LatencyHistogram[count];
+        for (int i = 0; i < count; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Fixed-bucket histogram. The bucket bounds match the Prometheus buckets, so exporting needs no conversion.
+     */
+    public static final class LatencyHistogram {
+        static final long[] BOUNDS_MILLIS = {50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 300000};
+
+        private final LongAdder[] buckets = adders(BOUNDS_MILLIS.length + 1);
+        private final LongAdder sumMillis = new LongAdder();
+
+        void record(long millis) {
+            long value = Math.max(0, millis);
+            int bucket = 0;
+            while (bucket < BOUNDS_MILLIS.length && value > BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            sumMillis.add(value);
+        }
+
+        /**
+         * Per-bucket (non-cumulative) counts; the last entry holds everything above the largest bound.
+         */
+        public long[] snapshot() {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+            }
+            return counts;
+        }
+
+        public long getSumMillis() {
+            return sumMillis.sum();
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Upper bound of the bucket containing the given quantile, or -1 if nothing was recorded
+         * or the quantile falls beyond the largest bound.
+         */
+        public long quantileUpperBoundMillis(double quantile) {
+            long[] counts = snapshot();
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            if (total == 0) return -1;
+
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return BOUNDS_MILLIS[i];
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.flennn;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Filtering and routing rules from the {@code rules} section of config.yml, compiled once per config load.
+ * <p>
+ * Command rules live in a prefix trie over lower-cased command names, so deciding whether a command is
+ * ignored or routed is a single walk over its first word. Server rules are looked up by exact server name.
+ * None of the checks allocate, so they run before any message formatting in {@link ActivityListeners}.
+ */
+public final class LogRules {
+    static final long[] NO_ROUTES = new long[0];
+    static final LogRules NONE = new LogRules(new CommandTrie(), Map.of());
+
+    private final CommandTrie commands;
+    private final Map<String, ServerRule> servers;
+
+    private LogRules(CommandTrie commands, Map<String, ServerRule> servers) {
+        this.commands = commands;
+        this.servers = servers;
+    }
+
+    static LogRules compile(ConfigSnapshot.Reader reader) {
+        CommandTrie commands = new CommandTrie();
+        for (String command : reader.getList("rules.ignored-commands")) {
+            commands.insert(command).ignore = true;
+        }
+
+        reader.getSection("rules.command-routes").forEach((command, channels) -> {
+            long[] routes = parseChannelIds(command, channels);
+            CommandRule rule = commands.insert(command);
+            rule.routes = concat(rule.routes, routes);
+        });
+
+        Map<String, ServerRule> servers = new HashMap<>();
+        for (String server : reader.getList("rules.ignored-servers")) {
+            servers.put(server, ServerRule.IGNORED);
+        }
+
+        reader.getSection("rules.chat-sample-rate").forEach((server, rate) -> {
+            double sampleRate = parseRate(server, rate);
+            servers.compute(server, (name, rule) -> (rule == null ? ServerRule.ALL : rule).withChatSampleRate(sampleRate));
+        });
+
+        reader.getSection("rules.disabled-types").forEach((server, types) -> {
+            if (!(types instanceof List<?> list)) return;
+            for (Object type : list) {
+                DiscordLogger.LogType logType = parseType(server, type, "disabled-types");
+                if (logType != null) {
+                    servers.compute(server, (name, rule) -> (rule == null ? ServerRule.ALL : rule).without(logType));
+                }
+            }
+        });
+
+        reader.getSection("rules.digest-types").forEach((server, types) -> {
+            if (!(types instanceof List<?> list)) return;
+            for (Object type : list) {
+                DiscordLogger.LogType logType = parseType(server, type, "digest-types");
+                if (logType != null) {
+                    servers.compute(server, (name, rule) -> (rule == null ? ServerRule.ALL : rule).digesting(logType));
+                }
+            }
+        });
+
+        return new LogRules(commands, Map.copyOf(servers));
+    }
+
+    public boolean allows(String serverName, DiscordLogger.LogType type) {
+        return servers.getOrDefault(serverName, ServerRule.ALL).allows(type);
+    }
+
+    /**
+     * Whether events of this type are posted to Discord as a periodic digest instead of one by one.
+     */
+    public boolean digests(String serverName, DiscordLogger.LogType type) {
+        ServerRule rule = servers.get(serverName);
+        return rule != null && (rule.digested & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * Applies the server rules and chat sampling rate for a chat message.
+     */
+    public boolean allowsChat(String serverName) {
+        ServerRule rule = servers.getOrDefault(serverName, ServerRule.ALL);
+        if (!rule.allows(DiscordLogger.LogType.CHAT)) return false;
+
+        return rule.chatSampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rule.chatSampleRate;
+    }
+
+    public boolean allowsCommand(String serverName, String command) {
+        if (!allows(serverName, DiscordLogger.LogType.COMMAND)) return false;
+
+        CommandRule rule = commands.find(command);
+        return rule == null || !rule.ignore;
+    }
+
+    /**
+     * Extra channel IDs a command should be copied to, besides the server's commands channel.
+     */
+    public long[] commandRoutes(String command) {
+        CommandRule rule = commands.find(command);
+        return rule == null ? NO_ROUTES : rule.routes;
+    }
+
+    private static long[] parseChannelIds(String command, Object channels) {
+        List<?> values = channels instanceof List<?> list ? list : List.of(channels);
+        long[] ids = new long[values.size()];
+        int count = 0;
+
+        for (Object value : values) {
+            try {
+                ids[count++] = Long.parseLong(String.valueOf(value).trim());
+            } catch (NumberFormatException e) {
+                count--;
+                Utils.Log.warning("Invalid channel ID '" + value + "' in command route for " + command);
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private static double parseRate(String server, Object rate) {
+        try {
+            return Math.max(0.0, Math.min(1.0, Double.parseDouble(String.valueOf(rate))));
+        } catch (NumberFormatException e) {
+            Utils.Log.warning("Invalid chat sample rate '" + rate + "' for server " + server + ", logging all chat");
+            return 1.0;
+        }
+    }
+
+    private static DiscordLogger.LogType parseType(String server, Object type, String key) {
+        try {
+            return DiscordLogger.LogType.valueOf(String.valueOf(type).trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Utils.Log.warning("Unknown log type '" + type + "' in " + key + " for server " + server);
+            return null;
+        }
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        long[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * @param digested bit set of {@link DiscordLogger.LogType} ordinals posted as digests
+     */
+    private record ServerRule(boolean ignored, boolean chat, boolean command, boolean joinLeave, double chatSampleRate,
+                              int digested) {
+        static final ServerRule ALL = new ServerRule(false, true, true, true, 1.0, 0);
+        static final ServerRule IGNORED = new ServerRule(true, false, false, false, 0.0, 0);
+
+        boolean allows(DiscordLogger.LogType type) {
+            if (ignored) return false;
+
+            return switch (type) {
+                case CHAT -> chat;
+                case COMMAND -> command;
+                case JOIN_LEAVE -> joinLeave;
+            };
+        }
+
+        ServerRule withChatSampleRate(double rate) {
+            return new ServerRule(ignored, chat, command, joinLeave, rate, digested);
+        }
+
+        ServerRule without(DiscordLogger.LogType type) {
+            return new ServerRule(ignored,
+                    chat && type != DiscordLogger.LogType.CHAT,
+                    command && type != DiscordLogger.LogType.COMMAND,
+                    joinLeave && type != DiscordLogger.LogType.JOIN_LEAVE,
+                    chatSampleRate,
+                    digested);
+        }
+
+        ServerRule digesting(DiscordLogger.LogType type) {
+            return new ServerRule(ignored, chat, command, joinLeave, chatSampleRate, digested | 1 << type.ordinal());
+        }
+    }
+
+    private static final class CommandRule {
+        boolean ignore;
+        long[] routes = NO_ROUTES;
+    }
+
+    /**
+     * Trie over command names. A pattern ending in {@code *} matches every command starting with it;
+     * the longest matching prefix wins unless the exact name has its own rule.
+     */
+    static final class CommandTrie {
+        private final Node root = new Node();
+
+        CommandRule insert(String pattern) {
+            String name = pattern.trim().toLowerCase(Locale.ROOT);
+            if (name.startsWith("/")) name = name.substring(1);
+
+            boolean prefix = name.endsWith("*");
+            if (prefix) name = name.substring(0, name.length() - 1);
+
+            Node node = root;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.childOrCreate(name.charAt(i));
+            }
+
+            if (prefix) {
+                if (node.prefixRule == null) node.prefixRule = new CommandRule();
+                return node.prefixRule;
+            }
+            if (node.exactRule == null) node.exactRule = new CommandRule();
+            return node.exactRule;
+        }
+
+        /**
+         * Looks up the first word of a command line, ignoring a leading slash and any {@code namespace:} prefix.
+         */
+        CommandRule find(String command) {
+            int start = 0;
+            int length = command.length();
+            while (start < length && (command.charAt(start) == '/' || command.charAt(start) == ' ')) start++;
+
+            int end = start;
+            while (end < length && command.charAt(end) != ' ') {
+                if (command.charAt(end) == ':') start = end + 1;
+                end++;
+            }
+
+            Node node = root;
+            CommandRule longestPrefix = node.prefixRule;
+            for (int i = start; i < end; i++) {
+                node = node.child(Character.toLowerCase(command.charAt(i)));
+                if (node == null) return longestPrefix;
+                if (node.prefixRule != null) longestPrefix = node.prefixRule;
+            }
+
+            return node.exactRule != null ? node.exactRule : longestPrefix;
+        }
+    }
+
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private CommandRule exactRule;
+        private CommandRule prefixRule;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) return children[index];
+
+            int insertAt = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+            Node child = new Node();
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+    }
+}
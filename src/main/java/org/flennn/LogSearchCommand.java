@@ -0,0 +1,241 @@
+package org.flennn;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.SimpleCommand;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+public class LogSearchCommand implements SimpleCommand {
+    private static final int PAGE_SIZE = 10;
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(1);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MMM dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final String USAGE = "/logsearch [player:<name|uuid>] [server:<name>] [type:chat|command|join_leave] "
+            + "[since:<2h>] [until:<30m>] [page:<n>] [text:<words...>]";
+
+    private final PluginScheduler scheduler;
+    private final ProxyServer proxyServer;
+    private final LogArchive archive;
+    private final ConfigManager configManager;
+    private final AtomicBoolean searching = new AtomicBoolean();
+
+    public LogSearchCommand(PluginScheduler scheduler, ProxyServer proxyServer, LogArchive archive, ConfigManager configManager) {
+        this.scheduler = scheduler;
+        this.proxyServer = proxyServer;
+        this.archive = archive;
+        this.configManager = configManager;
+    }
+
+    @Override
+    public void execute(Invocation invocation) {
+        CommandSource source = invocation.source();
+        if (!source.hasPermission("logger.admin")) {
+            source.sendMessage(Component.text(" ❌ You do not have permission to use this command.", NamedTextColor.RED));
+            return;
+        }
+
+        if (archive == null) {
+            source.sendMessage(Component.text(" ❌ The local log archive is disabled.", NamedTextColor.RED));
+            return;
+        }
+
+        SearchRequest request;
+        try {
+            request = parse(invocation.arguments());
+        } catch (IllegalArgumentException e) {
+            source.sendMessage(Component.text(" ❌ " + e.getMessage(), NamedTextColor.RED));
+            source.sendMessage(Component.text(" Usage: " + USAGE, NamedTextColor.GRAY));
+            return;
+        }
+
+        if (!searching.compareAndSet(false, true)) {
+            source.sendMessage(Component.text(" ⏳ Another log search is still running, try again shortly.", NamedTextColor.YELLOW));
+            return;
+        }
+
+        source.sendMessage(Component.text(" 🔎 Searching logs...", NamedTextColor.YELLOW));
+        scheduler.execute(() -> {
+            try {
+                runSearch(source, request);
+            } catch (Exception e) {
+                source.sendMessage(Component.text(" ❌ Log search failed: " + e.getMessage(), NamedTextColor.RED));
+            } finally {
+                searching.set(false);
+            }
+        });
+    }
+
+    private void runSearch(CommandSource source, SearchRequest request) throws Exception {
+        int maxResults = configManager.getSearchMaxResults();
+        int firstRow = (request.page - 1) * PAGE_SIZE;
+        List<LogEvent> rows = new ArrayList<>(PAGE_SIZE);
+        int[] matches = {0};
+
+        archive.search(request.query, event -> {
+            if (!request.filter.test(event)) return true;
+
+            if (matches[0] >= firstRow && rows.size() < PAGE_SIZE) {
+                rows.add(event);
+            }
+            return ++matches[0] < maxResults;
+        });
+
+        if (rows.isEmpty()) {
+            source.sendMessage(Component.text(" No matching log entries" + (request.page > 1 ? " on page " + request.page : "") + ".", NamedTextColor.GRAY));
+            return;
+        }
+
+        int pages = (matches[0] + PAGE_SIZE - 1) / PAGE_SIZE;
+        String total = matches[0] >= maxResults ? maxResults + "+" : String.valueOf(matches[0]);
+        source.sendMessage(Component.text(" 📜 Log search — page " + request.page + "/" + pages + " (" + total + " results)", NamedTextColor.GOLD));
+
+        for (LogEvent event : rows) {
+            source.sendMessage(Component.text(" " + TIME_FORMAT.format(Instant.ofEpochMilli(event.timestamp())) + " ", NamedTextColor.DARK_GRAY)
+                    .append(Component.text("[" + event.serverName() + "] ", NamedTextColor.AQUA))
+                    .append(Component.text(event.type().name() + " ", NamedTextColor.YELLOW))
+                    .append(Component.text(event.playerName() + ": ", NamedTextColor.WHITE))
+                    .append(Component.text(summarize(event), NamedTextColor.GRAY)));
+        }
+
+        if (request.page < pages) {
+            source.sendMessage(Component.text(" Use page:" + (request.page + 1) + " for more results.", NamedTextColor.GRAY));
+        }
+    }
+
+    private SearchRequest parse(String[] arguments) {
+        Instant now = Instant.now();
+        UUID playerId = null;
+        String playerName = null;
+        String server = null;
+        DiscordLogger.LogType type = null;
+        Instant since = now.minus(DEFAULT_RANGE);
+        Instant until = now;
+        String text = null;
+        int page = 1;
+
+        for (int i = 0; i < arguments.length; i++) {
+            String argument = arguments[i];
+            int separator = argument.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Unknown argument '" + argument + "'");
+            }
+
+            String key = argument.substring(0, separator).toLowerCase(Locale.ROOT);
+            String value = argument.substring(separator + 1);
+
+            switch (key) {
+                case "player" -> {
+                    try {
+                        playerId = UUID.fromString(value);
+                    } catch (IllegalArgumentException e) {
+                        playerId = proxyServer.getPlayer(value).map(Player::getUniqueId).orElse(null);
+                        playerName = playerId == null ? value : null;
+                    }
+                }
+                case "server" -> server = value;
+                case "type" -> {
+                    try {
+                        type = DiscordLogger.LogType.valueOf(value.replace('-', '_').toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown event type '" + value + "'");
+                    }
+                }
+                case "since" -> since = now.minus(parseDuration(value));
+                case "until" -> until = now.minus(parseDuration(value));
+                case "page" -> {
+                    try {
+                        page = Math.max(1, Integer.parseInt(value));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid page '" + value + "'");
+                    }
+                }
+                case "text" -> {
+                    text = String.join(" ", List.of(arguments).subList(i, arguments.length)).substring("text:".length());
+                    i = arguments.length;
+                }
+                default -> throw new IllegalArgumentException("Unknown filter '" + key + "'");
+            }
+        }
+
+        if (text != null && text.isBlank()) {
+            text = null;
+        }
+
+        Predicate<LogEvent> filter = event -> true;
+        if (playerName != null) {
+            String name = playerName;
+            filter = filter.and(event -> name.equalsIgnoreCase(event.playerName()));
+        }
+        if (server != null) {
+            String serverName = server;
+            filter = filter.and(event -> serverName.equalsIgnoreCase(event.serverName()));
+        }
+        if (type != null) {
+            DiscordLogger.LogType logType = type;
+            filter = filter.and(event -> event.type() == logType);
+        }
+        if (text != null) {
+            String needle = text.toLowerCase(Locale.ROOT);
+            filter = filter.and(event -> event.payload() != null && event.payload().toLowerCase(Locale.ROOT).contains(needle));
+        }
+
+        return new SearchRequest(new LogArchive.Query(playerId, since.toEpochMilli(), until.toEpochMilli()), filter, page);
+    }
+
+    private Duration parseDuration(String value) {
+        if (value.length() < 2) {
+            throw new IllegalArgumentException("Invalid duration '" + value + "', use e.g. 30m, 2h or 7d");
+        }
+
+        long amount;
+        try {
+            amount = Long.parseLong(value.substring(0, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid duration '" + value + "', use e.g. 30m, 2h or 7d");
+        }
+
+        return switch (Character.toLowerCase(value.charAt(value.length() - 1))) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            case 'w' -> Duration.ofDays(amount * 7);
+            default -> throw new IllegalArgumentException("Invalid duration '" + value + "', use e.g. 30m, 2h or 7d");
+        };
+    }
+
+    private String summarize(LogEvent event) {
+        String summary = switch (event.kind()) {
+            case CHAT -> event.payload();
+            case COMMAND -> "/" + event.payload();
+            case JOIN -> (event.isFirstJoin() ? "joined for the first time" : "joined") + (event.payload() != null ? " (linked: " + event.payload() + ")" : "");
+            case LEAVE -> "left" + (event.payload() != null ? " after " + event.payload() : "");
+        };
+        return event.repeats() > 0 ? summary + " (repeated " + event.repeats() + "x)" : summary;
+    }
+
+    public void register(CommandManager commandManager, Object plugin) {
+        commandManager.register(
+                commandManager.metaBuilder("logsearch")
+                        .plugin(plugin)
+                        .build(),
+                this
+        );
+    }
+
+    private record SearchRequest(LogArchive.Query query, Predicate<LogEvent> filter, int page) {
+    }
+}
@@ -0,0 +1,33 @@
+package org.flennn;
+
+/**
+ * Somewhere logged events end up: Discord, the local archive, a database. The {@link EventPipeline} gives every sink
+ * its own consumer thread and calls it only from that thread, so implementations need no locking of their own.
+ * Opening and closing a sink is up to whoever created it.
+ */
+public interface LogSink {
+
+    /**
+     * Short name for log messages and metrics.
+     */
+    String name();
+
+    /**
+     * Runs once on the sink's consumer thread before the first event.
+     */
+    default void start() {
+    }
+
+    void append(LogEvent event);
+
+    /**
+     * Called whenever the consumer has caught up, e.g. to write out buffered work after a quiet period.
+     */
+    default void idle() {
+    }
+
+    /**
+     * Writes out everything buffered. Called once the consumer has drained on shutdown.
+     */
+    void flush();
+}
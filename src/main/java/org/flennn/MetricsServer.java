@@ -0,0 +1,50 @@
+package org.flennn;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * Serves {@link LogMetrics} at {@code /metrics} in the Prometheus text format using the JDK's built-in HTTP server.
+ * Scrapes run on the plugin scheduler's virtual threads.
+ */
+public class MetricsServer {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    public MetricsServer(LogMetrics metrics, String bindAddress, int port, Executor executor) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+
+        server.createContext("/metrics", exchange -> respond(exchange, metrics));
+        server.setExecutor(executor);
+        server.start();
+
+        Utils.Log.info(" 📈 Prometheus metrics available at http://" + bindAddress + ":" + port + "/metrics");
+    }
+
+    private void respond(HttpExchange exchange, LogMetrics metrics) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,251 @@
+package org.flennn;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads MaxMind DB ({@code .mmdb}) files: a binary search tree over address bits followed by a data section of
+ * typed values. The file is memory-mapped and only read with absolute offsets, so one reader serves any number of
+ * threads and the OS page cache keeps the hot parts of the tree in memory.
+ * <p>
+ * Records are decoded into plain maps, lists, strings, numbers and booleans. Files over 2 GiB are not supported;
+ * MaxMind's own databases are far smaller.
+ */
+final class MmdbReader {
+    private static final byte[] METADATA_MARKER = {(byte) 0xAB, (byte) 0xCD, (byte) 0xEF,
+            'M', 'a', 'x', 'M', 'i', 'n', 'd', '.', 'c', 'o', 'm'};
+    private static final int METADATA_MAX_SIZE = 128 * 1024;
+    private static final int DATA_SECTION_SEPARATOR = 16;
+
+    private final ByteBuffer buffer;
+    private final String databaseType;
+    private final int nodeCount;
+    private final int recordSize;
+    private final int ipVersion;
+    private final int searchTreeSize;
+    private final int ipv4Start;
+
+    private MmdbReader(ByteBuffer buffer, Map<?, ?> metadata) throws IOException {
+        this.buffer = buffer;
+        this.databaseType = String.valueOf(metadata.get("database_type"));
+        this.nodeCount = intValue(metadata, "node_count");
+        this.recordSize = intValue(metadata, "record_size");
+        this.ipVersion = intValue(metadata, "ip_version");
+
+        if (recordSize != 24 && recordSize != 28 && recordSize != 32) {
+            throw new IOException("Unsupported record size " + recordSize);
+        }
+        this.searchTreeSize = recordSize * 2 / 8 * nodeCount;
+
+        // IPv4 addresses live under ::/96 in an IPv6 tree; find that node once
+        int node = 0;
+        if (ipVersion == 6) {
+            for (int i = 0; i < 96 && node < nodeCount; i++) {
+                node = readNode(node, 0);
+            }
+        }
+        this.ipv4Start = node;
+    }
+
+    static MmdbReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Database is larger than 2 GiB");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int metadataStart = findMetadata(buffer);
+            if (metadataStart < 0) {
+                throw new IOException("Not a MaxMind DB file");
+            }
+            if (!(new Decoder(buffer, metadataStart, metadataStart).decode() instanceof Map<?, ?> metadata)) {
+                throw new IOException("Invalid metadata");
+            }
+            return new MmdbReader(buffer, metadata);
+        }
+    }
+
+    String databaseType() {
+        return databaseType;
+    }
+
+    /**
+     * Returns the record for the network containing the address, or null if there is none.
+     *
+     * @param address 4 or 16 bytes, as returned by {@link java.net.InetAddress#getAddress()}
+     */
+    Map<?, ?> lookup(byte[] address) throws IOException {
+        if (address.length == 16 && ipVersion == 4) return null;
+
+        int node = address.length == 4 ? ipv4Start : 0;
+        int bits = address.length * 8;
+        for (int i = 0; i < bits && node < nodeCount; i++) {
+            node = readNode(node, (address[i >>> 3] >>> (7 - (i & 7))) & 1);
+        }
+
+        if (node <= nodeCount) return null;
+
+        int offset = searchTreeSize + (node - nodeCount);
+        Object record = new Decoder(buffer, searchTreeSize + DATA_SECTION_SEPARATOR, offset).decode();
+        return record instanceof Map<?, ?> map ? map : null;
+    }
+
+    private int readNode(int node, int bit) throws IOException {
+        try {
+            return switch (recordSize) {
+                case 24 -> {
+                    int base = node * 6 + bit * 3;
+                    yield uint24(buffer, base);
+                }
+                case 28 -> {
+                    int base = node * 7;
+                    int middle = buffer.get(base + 3) & 0xFF;
+                    yield bit == 0
+                            ? ((middle & 0xF0) << 20) | uint24(buffer, base)
+                            : ((middle & 0x0F) << 24) | uint24(buffer, base + 4);
+                }
+                default -> buffer.getInt(node * 8 + bit * 4);
+            };
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt search tree at node " + node);
+        }
+    }
+
+    private static int findMetadata(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int stop = Math.max(0, limit - METADATA_MAX_SIZE);
+
+        outer:
+        for (int start = limit - METADATA_MARKER.length; start >= stop; start--) {
+            for (int i = 0; i < METADATA_MARKER.length; i++) {
+                if (buffer.get(start + i) != METADATA_MARKER[i]) continue outer;
+            }
+            return start + METADATA_MARKER.length;
+        }
+        return -1;
+    }
+
+    private static int intValue(Map<?, ?> metadata, String key) throws IOException {
+        if (!(metadata.get(key) instanceof Number number)) {
+            throw new IOException("Metadata is missing " + key);
+        }
+        return number.intValue();
+    }
+
+    private static int uint24(ByteBuffer buffer, int offset) {
+        return (buffer.get(offset) & 0xFF) << 16 | (buffer.get(offset + 1) & 0xFF) << 8 | buffer.get(offset + 2) & 0xFF;
+    }
+
+    /**
+     * Decodes one value of the data section; pointers are relative to {@code base}.
+     */
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private final int base;
+        private int position;
+
+        Decoder(ByteBuffer buffer, int base, int position) {
+            this.buffer = buffer;
+            this.base = base;
+            this.position = position;
+        }
+
+        Object decode() throws IOException {
+            try {
+                return value();
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt data section at offset " + position);
+            }
+        }
+
+        private Object value() throws IOException {
+            int control = next();
+            int type = control >>> 5;
+
+            if (type == 1) {
+                int target = base + pointer(control);
+                int resume = position;
+                position = target;
+                Object value = value();
+                position = resume;
+                return value;
+            }
+
+            if (type == 0) type = 7 + next();
+            int size = size(control & 0x1F);
+
+            return switch (type) {
+                case 2 -> new String(bytes(size), StandardCharsets.UTF_8);
+                case 3 -> Double.longBitsToDouble(unsigned(size));
+                case 4 -> bytes(size);
+                case 5, 6, 9 -> unsigned(size);
+                case 8 -> (int) unsigned(size);
+                case 10 -> new BigInteger(1, bytes(size));
+                case 7 -> {
+                    Map<Object, Object> map = new HashMap<>(size * 2);
+                    for (int i = 0; i < size; i++) {
+                        map.put(value(), value());
+                    }
+                    yield map;
+                }
+                case 11 -> {
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(value());
+                    }
+                    yield list;
+                }
+                case 14 -> size != 0;
+                case 15 -> Float.intBitsToFloat((int) unsigned(size));
+                default -> throw new IOException("Unknown data type " + type + " at offset " + (position - 1));
+            };
+        }
+
+        private int pointer(int control) {
+            int high = control & 0x07;
+            return switch ((control >>> 3) & 0x03) {
+                case 0 -> high << 8 | next();
+                case 1 -> (high << 16 | next() << 8 | next()) + 2048;
+                case 2 -> (high << 24 | next() << 16 | next() << 8 | next()) + 526336;
+                default -> next() << 24 | next() << 16 | next() << 8 | next();
+            };
+        }
+
+        private int size(int size) {
+            return switch (size) {
+                case 29 -> 29 + next();
+                case 30 -> 285 + (next() << 8 | next());
+                case 31 -> 65821 + (next() << 16 | next() << 8 | next());
+                default -> size;
+            };
+        }
+
+        private long unsigned(int size) {
+            long value = 0;
+            for (int i = 0; i < size; i++) {
+                value = value << 8 | next();
+            }
+            return value;
+        }
+
+        private byte[] bytes(int size) {
+            byte[] bytes = new byte[size];
+            buffer.get(position, bytes);
+            position += size;
+            return bytes;
+        }
+
+        private int next() {
+            return buffer.get(position++) & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.flennn;
+
+import com.velocitypowered.api.proxy.Player;
+
+import java.net.InetAddress;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Per-player fields every log event carries, resolved once at login instead of on every chat line. The client
+ * string only changes when the client reports its brand, which Velocity delivers shortly after login.
+ * <p>
+ * With GeoIP enabled the address is also described once here, so reconnects and chat never touch the databases.
+ * Client strings are interned, so the few version and brand combinations on a proxy share one instance each.
+ * Profiles are removed on disconnect, and {@link #evictStale} drops the ones whose disconnect was never seen.
+ */
+public class PlayerProfiles {
+    private static final int MAX_INTERNED = 1024;
+
+    private final Map<UUID, Profile> profiles = new ConcurrentHashMap<>();
+    private final Map<String, String> interned = new ConcurrentHashMap<>();
+    private final GeoIp geoIp;
+
+    public PlayerProfiles(GeoIp geoIp) {
+        this.geoIp = geoIp;
+    }
+
+    /**
+     * @param newAccount true if the account had never been seen before this login
+     */
+    public record Profile(UUID id, String name, String ip, String location, String client, boolean newAccount) {
+    }
+
+    public void login(Player player, boolean newAccount) {
+        profiles.put(player.getUniqueId(), create(player, player.getClientBrand(), newAccount));
+    }
+
+    public void brandChanged(Player player, String brand) {
+        profiles.computeIfPresent(player.getUniqueId(), (id, profile) ->
+                new Profile(profile.id(), profile.name(), profile.ip(), profile.location(), client(player, brand),
+                        profile.newAccount()));
+    }
+
+    /**
+     * The player's profile, created on the spot if the login was missed.
+     */
+    public Profile get(Player player) {
+        Profile profile = profiles.get(player.getUniqueId());
+        return profile != null ? profile : profiles.computeIfAbsent(player.getUniqueId(), id -> create(player, player.getClientBrand(), false));
+    }
+
+    /**
+     * Removes the player's profile and returns it, or a freshly built one if none was cached.
+     */
+    public Profile disconnected(Player player) {
+        Profile profile = profiles.remove(player.getUniqueId());
+        return profile != null ? profile : create(player, player.getClientBrand(), false);
+    }
+
+    /**
+     * Drops profiles of players that are no longer online, e.g. when an event raced the disconnect.
+     */
+    public int evictStale(Predicate<UUID> online) {
+        int before = profiles.size();
+        profiles.keySet().removeIf(id -> !online.test(id));
+        return before - profiles.size();
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    private Profile create(Player player, String brand, boolean newAccount) {
+        InetAddress address = player.getRemoteAddress().getAddress();
+        String ip = address != null ? address.getHostAddress() : "Unknown";
+        String location = geoIp != null ? geoIp.describe(address) : null;
+
+        return new Profile(player.getUniqueId(), player.getUsername(), ip, location, client(player, brand), newAccount);
+    }
+
+    private String client(Player player, String brand) {
+        String version = player.getProtocolVersion().getMostRecentSupportedVersion();
+        brand = Objects.requireNonNullElse(brand, "Unknown").toUpperCase(Locale.ROOT);
+
+        return intern("Version: " + (version != null ? version : "Unknown") + ", Brand: " + brand);
+    }
+
+    /**
+     * Brands are client-controlled, so once the table is full new values are simply not shared.
+     */
+    private String intern(String value) {
+        String existing = interned.get(value);
+        if (existing != null) return existing;
+        if (interned.size() >= MAX_INTERNED) return value;
+
+        existing = interned.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+}
@@ -0,0 +1,143 @@
+package org.flennn;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The plugin's one scheduler. A single platform thread keeps time; every task runs on its own virtual thread, so
+ * blocking Discord, HTTP and file work never ties up a pool and the thread count stays flat however many backend
+ * servers there are.
+ * <p>
+ * Components that come and go with reloads schedule through a {@link Group} and close it when they are retired, which
+ * cancels their repeating tasks without touching anyone else's. {@link #shutdown} drains what is still running.
+ */
+public class PluginScheduler {
+    private static final long DRAIN_TIMEOUT_SECONDS = 5;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ProxyLogger-Scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ProxyLogger-Task-", 0).factory());
+
+    /**
+     * Executor running each task on a new virtual thread, for APIs that take an {@link java.util.concurrent.Executor}.
+     */
+    public ExecutorService workers() {
+        return workers;
+    }
+
+    public void execute(Runnable task) {
+        try {
+            workers.execute(guarded(task));
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Runs the task at a fixed rate. A run that is still busy when the next one is due makes that one skip.
+     */
+    public Future<?> repeat(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        AtomicBoolean running = new AtomicBoolean();
+        Runnable once = () -> {
+            try {
+                task.run();
+            } finally {
+                running.set(false);
+            }
+        };
+
+        try {
+            return timer.scheduleAtFixedRate(() -> {
+                if (running.compareAndSet(false, true)) {
+                    try {
+                        workers.execute(guarded(once));
+                    } catch (RejectedExecutionException e) {
+                        running.set(false);
+                    }
+                }
+            }, initialDelay, period, unit);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public Group group() {
+        return new Group();
+    }
+
+    /**
+     * Stops the timer, then waits for running tasks to finish before interrupting them.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+        workers.shutdown();
+
+        try {
+            if (!workers.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Utils.Log.warning(" Scheduler tasks did not finish in time, interrupting them");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+
+    private static Runnable guarded(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                Utils.Log.warning("Scheduled task failed: " + e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Tasks owned by one component. Closing the group cancels its repeating tasks;
+     * work submitted after that is ignored.
+     */
+    public final class Group {
+        private final Set<Future<?>> tasks = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        private Group() {
+        }
+
+        public void execute(Runnable task) {
+            if (!closed) PluginScheduler.this.execute(() -> {
+                if (!closed) task.run();
+            });
+        }
+
+        public Future<?> repeat(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            Future<?> future = PluginScheduler.this.repeat(task, initialDelay, period, unit);
+            track(future);
+            return future;
+        }
+
+        private void track(Future<?> future) {
+            tasks.add(future);
+            tasks.removeIf(Future::isDone);
+            if (closed) future.cancel(false);
+        }
+
+        public void close() {
+            closed = true;
+            tasks.forEach(task -> task.cancel(false));
+            tasks.clear();
+        }
+    }
+}
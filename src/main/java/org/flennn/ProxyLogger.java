@@ -11,11 +11,12 @@ import com.velocitypowered.api.proxy.ProxyServer;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.requests.GatewayIntent;
-import net.dv8tion.jda.api.utils.cache.CacheFlag;
 
+import java.io.IOException;
 import java.nio.file.Path;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -24,18 +25,35 @@ public class ProxyLogger {
 
     private static ProxyLogger instance;
     private final ConfigManager configManager;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final PluginScheduler scheduler = new PluginScheduler();
     private final ProxyServer proxyServer;
     private final Logger logger;
-    private JDA jda;
-    private DiscordLogger discordLogger;
+    private final Path dataFolder;
+    private final LogMetrics metrics = new LogMetrics();
+    private final SessionTracker sessions = new SessionTracker();
+    private PlayerProfiles profiles;
+    private final ChannelCache channelCache;
+    private volatile List<JDA> bots = List.of();
+    private volatile LogDelivery delivery;
+    private EventPipeline pipeline;
+    private EventSpool spool;
+    private LogArchive archive;
+    private JdbcSink database;
+    private AltAccountIndex alts;
+    private SeenAccounts seen;
+    private DiscordSink discordSink;
+    private MetricsServer metricsServer;
+    private SpamCoalescer coalescer;
 
 
     @Inject
     public ProxyLogger(ProxyServer proxyServer, Logger logger, @DataDirectory Path dataFolder) {
         this.proxyServer = proxyServer;
         this.logger = logger;
+        this.dataFolder = dataFolder;
         this.configManager = new ConfigManager(proxyServer, logger, dataFolder);
+        this.channelCache = new ChannelCache(dataFolder);
+        this.configManager.addReloadListener(this::applyConfig);
     }
 
     public static ProxyLogger getInstance() {
@@ -47,78 +65,315 @@ public class ProxyLogger {
         Utils.Log.info(" 🔧 Starting Logger ...");
         instance = this;
 
-        if (LaunchDiscord()) {
-            registerListeners();
-        }
+        openStorage();
+        startMetricsServer();
 
+        // Listeners go live before Discord connects; early events wait in the spool until channels are resolved
+        registerListeners();
         registerCommands();
+        scheduleSessionEviction();
 
         Utils.Log.info(" ✅ Logger successfully loaded!");
     }
 
+    public void openStorage() {
+        try {
+            spool = new EventSpool(dataFolder, configManager.getSpoolSegmentBytes(), configManager.getSpoolMaxBytes(),
+                    configManager.getSpoolMaxAttempts(), configManager.getSpoolMaxDeferMillis());
+        } catch (IOException e) {
+            Utils.Log.severe(" ❌ Failed to open event spool, delivering without it: " + e.getMessage());
+            spool = EventSpool.unspooled();
+        }
+        scheduler.repeat(spool::sync, 1, 1, TimeUnit.SECONDS);
+
+        if (configManager.IsArchive()) {
+            try {
+                archive = new LogArchive(dataFolder, configManager.getArchiveBlockBytes(), configManager.getArchiveSegmentBytes(),
+                        configManager.getArchiveRetentionDays(), configManager.getArchiveMaxBytes());
+            } catch (IOException e) {
+                Utils.Log.severe(" ❌ Failed to open log archive: " + e.getMessage());
+            }
+        }
+
+        if (configManager.IsDatabase()) {
+            database = new JdbcSink(dataFolder, configManager);
+        }
+
+        profiles = new PlayerProfiles(GeoIp.open(dataFolder, configManager));
+
+        if (configManager.IsAlts()) {
+            try {
+                alts = new AltAccountIndex(dataFolder, configManager.getAltsRetentionDays());
+                scheduler.repeat(alts::flush, 5, 5, TimeUnit.SECONDS);
+            } catch (IOException e) {
+                Utils.Log.severe(" ❌ Failed to open alt account index: " + e.getMessage());
+            }
+        }
+
+        try {
+            seen = new SeenAccounts(dataFolder, alts, configManager.getFirstJoinBootstrapDays());
+            scheduler.repeat(seen::flush, 5, 5, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            Utils.Log.severe(" ❌ Failed to open seen accounts: " + e.getMessage());
+        }
+    }
+
+    public void startMetricsServer() {
+        if (!configManager.IsPrometheus()) return;
+
+        try {
+            metricsServer = new MetricsServer(metrics, configManager.getPrometheusBind(), configManager.getPrometheusPort(), scheduler.workers());
+        } catch (IOException e) {
+            Utils.Log.severe(" ❌ Failed to start Prometheus endpoint: " + e.getMessage());
+        }
+    }
+
+    private void scheduleSessionEviction() {
+        scheduler.repeat(() -> {
+            sessions.evictStale(id -> proxyServer.getPlayer(id).isPresent());
+            profiles.evictStale(id -> proxyServer.getPlayer(id).isPresent());
+        }, 5, 5, TimeUnit.MINUTES);
+    }
+
     public void registerListeners() {
-        discordLogger = new DiscordLogger(proxyServer, jda, configManager.getLogsGuildID(), logger, configManager);
-        proxyServer.getEventManager().register(this, new ActivityListeners(discordLogger, configManager));
+        startDelivery();
+        discordSink = new DiscordSink(spool, delivery, new EventDigest(configManager, metrics), configManager);
+
+        List<LogSink> sinks = new ArrayList<>();
+        if (archive != null) sinks.add(archive);
+        if (database != null) sinks.add(database);
+
+        pipeline = new EventPipeline(discordSink, sinks, configManager);
+        metrics.bind(pipeline, spool);
+        coalescer = new SpamCoalescer(configManager, metrics, pipeline::publish);
+        proxyServer.getEventManager().register(this, new ActivityListeners(pipeline, sessions, profiles, alts, seen, configManager, metrics, coalescer));
+        scheduler.repeat(coalescer::sweep, 1, 1, TimeUnit.SECONDS);
+        scheduler.repeat(discordSink::sweepDigests, 1, 1, TimeUnit.SECONDS);
     }
 
     public void registerCommands() {
         CommandManager commandManager = proxyServer.getCommandManager();
 
         new ReloadConfigCommand(this, configManager, proxyServer).register(commandManager, this);
+        new LogSearchCommand(scheduler, proxyServer, archive, configManager).register(commandManager, this);
+        new StatsCommand(metrics).register(commandManager, this);
+    }
+
+    /**
+     * Creates the configured delivery backend. In bot mode it reuses the current JDA sessions if there are any,
+     * otherwise the bots log in in the background.
+     */
+    private void startDelivery() {
+        if (configManager.IsWebhookDelivery()) {
+            delivery = new WebhookLogger(configManager, spool, metrics, scheduler);
+            return;
+        }
+
+        DiscordLogger discordLogger = new DiscordLogger(proxyServer, logger, configManager, spool, channelCache, metrics, scheduler);
+        delivery = discordLogger;
+        proxyServer.getEventManager().register(this, discordLogger);
+
+        List<JDA> current = bots;
+        if (!current.isEmpty()) {
+            discordLogger.connect(current);
+        } else {
+            scheduler.execute(() -> LaunchDiscord(discordLogger));
+        }
+    }
+
+    private void retireDelivery(LogDelivery retired) {
+        if (retired == null) return;
+
+        if (retired instanceof DiscordLogger) {
+            proxyServer.getEventManager().unregisterListener(this, retired);
+        }
+        retired.shutdown();
+    }
+
+    /**
+     * Applies a reloaded config by changing only what differs from the previous snapshot. Rules, the logger
+     * switch and other per-event settings are read from the live snapshot and need nothing here.
+     */
+    private synchronized void applyConfig(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (pipeline == null) return;
+
+        boolean reconnect = !previous.botToken().equals(current.botToken())
+                || !previous.extraBotTokens().equals(current.extraBotTokens())
+                || previous.webhookDelivery() != current.webhookDelivery();
+        boolean rebuildDelivery = reconnect
+                || !previous.logsGuildId().equals(current.logsGuildId())
+                || !previous.webhooks().equals(current.webhooks())
+                || previous.batching() != current.batching();
+
+        if (rebuildDelivery) {
+            LogDelivery retired = delivery;
+            List<JDA> retiredBots = reconnect ? bots : List.of();
+            if (reconnect) bots = List.of();
+
+            startDelivery();
+            discordSink.setDelivery(delivery);
+            retireDelivery(retired);
+
+            retiredBots.forEach(JDA::shutdown);
+            Utils.Log.info(reconnect ? " 🔄 Delivery settings changed, reconnecting to Discord" : " 🔄 Delivery settings applied");
+        } else {
+            // The flush interval and the alerts channels are changed in place
+            delivery.reconfigure(previous, current);
+        }
+
+        if (!previous.pipelineOverflowPolicy().equals(current.pipelineOverflowPolicy())
+                || previous.pipelineBlockTimeoutMillis() != current.pipelineBlockTimeoutMillis()) {
+            pipeline.reconfigure(configManager);
+        }
+
+        if (previous.prometheus() != current.prometheus()
+                || !previous.prometheusBind().equals(current.prometheusBind())
+                || previous.prometheusPort() != current.prometheusPort()) {
+            if (metricsServer != null) {
+                metricsServer.stop();
+                metricsServer = null;
+            }
+            startMetricsServer();
+        }
+
+        if (previous.pipelineCapacity() != current.pipelineCapacity()
+                || previous.spoolSegmentBytes() != current.spoolSegmentBytes()
+                || previous.spoolMaxBytes() != current.spoolMaxBytes()
+                || previous.spoolMaxAttempts() != current.spoolMaxAttempts()
+                || previous.spoolMaxDeferMillis() != current.spoolMaxDeferMillis()
+                || previous.archive() != current.archive()
+                || previous.archiveBlockBytes() != current.archiveBlockBytes()
+                || previous.archiveSegmentBytes() != current.archiveSegmentBytes()
+                || previous.archiveRetentionDays() != current.archiveRetentionDays()
+                || previous.archiveMaxBytes() != current.archiveMaxBytes()
+                || previous.database() != current.database()
+                || !previous.databaseFile().equals(current.databaseFile())
+                || previous.databaseBatchSize() != current.databaseBatchSize()
+                || previous.databaseCommitIntervalMillis() != current.databaseCommitIntervalMillis()
+                || previous.alts() != current.alts()
+                || previous.altsRetentionDays() != current.altsRetentionDays()
+                || previous.geoIp() != current.geoIp()
+                || !previous.geoIpDatabases().equals(current.geoIpDatabases())
+                || previous.geoIpCacheSize() != current.geoIpCacheSize()
+                || previous.firstJoinBootstrapDays() != current.firstJoinBootstrapDays()) {
+            Utils.Log.warning(" Pipeline, spool, archive, database, alt index, GeoIP and first-join bootstrap settings take effect after a proxy restart");
+        }
     }
 
-    public boolean LaunchDiscord() {
+    /**
+     * Logs the bots in on a virtual thread. The plugin only posts embeds and manages its own channels,
+     * so light sessions with no privileged intents and no member cache are enough. Only the primary bot is
+     * required; an extra bot that fails to log in is skipped.
+     */
+    public void LaunchDiscord(DiscordLogger discordLogger) {
+        List<JDA> started = new ArrayList<>();
         try {
-            JDABuilder builder = JDABuilder.create(configManager.getBotToken(), GatewayIntent.getIntents(GatewayIntent.ALL_INTENTS));
-            builder.disableCache(CacheFlag.EMOJI, CacheFlag.STICKER, CacheFlag.SCHEDULED_EVENTS);
+            started.add(login(configManager.getBotToken()));
+
+            List<String> extraTokens = configManager.getExtraBotTokens();
+            for (int i = 0; i < extraTokens.size(); i++) {
+                try {
+                    started.add(login(extraTokens.get(i)));
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    Utils.Log.warning(" Failed to start extra Discord bot #" + (i + 1) + ": " + e.getMessage());
+                }
+            }
 
-            jda = builder.build().awaitReady();
+            // A reload or shutdown may have replaced this logger while we were connecting
+            if (delivery != discordLogger) {
+                started.forEach(JDA::shutdown);
+                return;
+            }
 
-            Utils.Log.info(" ✅ Logger Discord-bot successfully loaded!");
-            return true;
+            bots = List.copyOf(started);
+            discordLogger.connect(bots);
+            Utils.Log.info(" ✅ Logger Discord-bot successfully loaded!" + (started.size() > 1 ? " (" + started.size() + " bots)" : ""));
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            started.forEach(JDA::shutdown);
             Utils.Log.severe(" ❌ Failed to start Discord bot");
-            e.printStackTrace();
+        } catch (Exception e) {
+            started.forEach(JDA::shutdown);
+            Utils.Log.severe(" ❌ Failed to start Discord bot: " + e.getMessage());
         }
-        return false;
     }
 
+    /**
+     * A light session without privileged intents or a member cache. GUILDS stays on: without it Discord sends no guild
+     * or channel events and JDA's channel cache stays empty.
+     */
+    private static JDA login(String token) throws InterruptedException {
+        return JDABuilder.createLight(token, EnumSet.of(GatewayIntent.GUILDS))
+                .build()
+                .awaitReady();
+    }
+
+    /**
+     * Stops logging: open coalescing windows, queued events and open digests are handed to delivery, then delivery
+     * and the Discord sessions are shut down.
+     */
     public void shutdown() {
-        if (!scheduler.isShutdown()) {
-            scheduler.shutdownNow();
+        if (coalescer != null) {
+            coalescer.flush();
+        }
 
-            try {
-                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    Utils.Log.warning(" DiscordLogger scheduler did not terminate in time.");
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                Utils.Log.warning(" DiscordLogger scheduler shutdown interrupted.");
-            }
+        if (pipeline != null) {
+            pipeline.shutdown();
+            discordSink.flushDigests();
+        }
 
-            if (jda != null) {
-                jda.shutdown();
-            }
+        if (delivery != null) {
+            retireDelivery(delivery);
+            delivery = null;
         }
+
+        // After delivery, so the acks from its final flush reach the disk
+        if (spool != null) {
+            spool.close();
+        }
+
+        bots.forEach(JDA::shutdown);
+        bots = List.of();
     }
 
     @Subscribe
     public void onProxyShutdown(ProxyShutdownEvent event) {
         shutdown();
-    }
+        configManager.close();
 
-    public void reload() {
-        shutdown();
-        Utils.Log.info(" 🔄 Reloading Logger...");
-        configManager.reloadConfig();
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
 
-        proxyServer.getEventManager().unregisterListeners(this);
+        if (archive != null) {
+            archive.close();
+        }
 
-        LaunchDiscord();
+        if (database != null) {
+            database.close();
+        }
 
-        registerListeners();
-        registerCommands();
+        if (alts != null) {
+            alts.close();
+        }
+
+        if (seen != null) {
+            seen.close();
+        }
 
-        Utils.Log.info(" 🔁 Logger config and listeners reloaded.");
+        // Last, so work started by the steps above can finish
+        scheduler.shutdown();
+    }
+
+    /**
+     * Re-reads config.yml; the changes are applied incrementally by {@link #applyConfig}.
+     * Listeners, commands and queued events are left untouched.
+     */
+    public void reload() {
+        Utils.Log.info(" 🔄 Reloading Logger...");
+        configManager.reloadConfig();
+        Utils.Log.info(" 🔁 Logger config reloaded.");
     }
 }
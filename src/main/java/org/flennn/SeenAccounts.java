@@ -0,0 +1,190 @@
+package org.flennn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every account that has ever joined, so a first join really is the first. Kept in memory as an open-addressing
+ * table of UUIDs as two longs and persisted to {@code seen.dat} as a header followed by an append-only list of
+ * 16-byte UUIDs. Entries never expire.
+ * <p>
+ * When the file is created, it is seeded with the accounts the alt index still remembers. If there is nothing to seed
+ * from, a bootstrap period starts instead: accounts are recorded but not reported as new until it ends, so upgrading
+ * doesn't announce every returning player as a first join. Its start is kept in the header.
+ */
+public class SeenAccounts {
+    private static final int RECORD_SIZE = Long.BYTES * 2;
+    /** Magic and bootstrap start in epoch millis (0 = none); one record long so records stay aligned. */
+    private static final int HEADER_SIZE = RECORD_SIZE;
+    private static final long MAGIC = 0x504C5345454E0001L;
+
+    private final Path file;
+    /** Held while writing the file, so a slow write never blocks a login. */
+    private final Object fileLock = new Object();
+
+    private long[] mosts = new long[1024];
+    private long[] leasts = new long[1024];
+    private boolean[] used = new boolean[1024];
+    private int size;
+    private ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * 256);
+
+    private FileChannel channel;
+    /** Epoch millis until which added accounts are not reported as new. */
+    private final long bootstrapUntil;
+
+    public SeenAccounts(Path dataFolder, AltAccountIndex alts, int bootstrapDays) throws IOException {
+        this.file = dataFolder.resolve("seen.dat");
+        Files.createDirectories(dataFolder);
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long bootstrapStart;
+        if (channel.size() < HEADER_SIZE) {
+            channel.truncate(0);
+            if (alts != null) alts.forEachAccount(this::add);
+            bootstrapStart = size == 0 ? System.currentTimeMillis() : 0;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putLong(bootstrapStart).flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.position(HEADER_SIZE);
+            flush();
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) break;
+            }
+            // Files written before the header existed start with their first record
+            boolean headed = header.getLong(0) == MAGIC;
+            bootstrapStart = headed ? header.getLong(Long.BYTES) : 0;
+            load(headed ? HEADER_SIZE : 0);
+        }
+
+        bootstrapUntil = bootstrapStart == 0 ? 0 : bootstrapStart + TimeUnit.DAYS.toMillis(bootstrapDays);
+        if (System.currentTimeMillis() < bootstrapUntil) {
+            Utils.Log.info(" 👣 Learning returning players; first joins are flagged from " + Instant.ofEpochMilli(bootstrapUntil));
+        }
+    }
+
+    private void load(long start) throws IOException {
+        long end = start + (channel.size() - start) / RECORD_SIZE * RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+        long position = start;
+
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) break;
+            }
+            buffer.flip();
+
+            for (int offset = 0; offset + RECORD_SIZE <= buffer.limit(); offset += RECORD_SIZE) {
+                insert(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES));
+            }
+            position += buffer.limit();
+        }
+
+        // Drops a partial record left by a torn write
+        channel.truncate(end);
+        channel.position(end);
+    }
+
+    /**
+     * Records the account. Returns true if it had never been seen before and the bootstrap period is over.
+     */
+    public synchronized boolean add(UUID id) {
+        if (!insert(id.getMostSignificantBits(), id.getLeastSignificantBits())) return false;
+
+        if (!pending.hasRemaining()) {
+            ByteBuffer grown = ByteBuffer.allocate(pending.capacity() * 2);
+            grown.put(pending.flip());
+            pending = grown;
+        }
+        pending.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        return System.currentTimeMillis() >= bootstrapUntil;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Appends the accounts added since the last flush to the file.
+     */
+    public void flush() {
+        synchronized (fileLock) {
+            if (channel == null) return;
+
+            ByteBuffer records;
+            synchronized (this) {
+                if (pending.position() == 0) return;
+                records = ByteBuffer.wrap(Arrays.copyOf(pending.array(), pending.position()));
+                pending.clear();
+            }
+
+            try {
+                while (records.hasRemaining()) channel.write(records);
+            } catch (IOException e) {
+                Utils.Log.warning("Failed to write seen accounts: " + e.getMessage());
+            }
+        }
+    }
+
+    public void close() {
+        flush();
+        synchronized (fileLock) {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private boolean insert(long most, long least) {
+        int slot = find(most, least);
+        if (used[slot]) return false;
+
+        mosts[slot] = most;
+        leasts[slot] = least;
+        used[slot] = true;
+        if (++size * 2 > used.length) grow();
+        return true;
+    }
+
+    private int find(long most, long least) {
+        int mask = used.length - 1;
+        long hash = (most * 0x9E3779B97F4A7C15L) ^ (least * 0xC2B2AE3D27D4EB4FL);
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+        while (used[slot] && (mosts[slot] != most || leasts[slot] != least)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldMosts = mosts;
+        long[] oldLeasts = leasts;
+        boolean[] oldUsed = used;
+
+        mosts = new long[oldUsed.length * 2];
+        leasts = new long[oldUsed.length * 2];
+        used = new boolean[oldUsed.length * 2];
+
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i]) continue;
+            int slot = find(oldMosts[i], oldLeasts[i]);
+            mosts[slot] = oldMosts[i];
+            leasts[slot] = oldLeasts[i];
+            used[slot] = true;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.flennn;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Tracks proxy sessions from the first backend connection to disconnect, including the time spent on each
+ * backend server. Server hops extend the session rather than restarting it.
+ * <p>
+ * State is kept per online player only: sessions are removed on disconnect, and {@link #evictStale} drops
+ * sessions whose disconnect was never seen.
+ */
+public class SessionTracker {
+    private static final int MAX_TRACKED_SERVERS = 16;
+    private static final long EVICTION_GRACE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Records a connection to a backend server.
+     *
+     * @param initial true for the first server after login, which always starts a fresh session
+     */
+    public void connected(UUID playerId, String serverName, boolean initial) {
+        long now = System.nanoTime();
+        Session session = initial
+                ? sessions.compute(playerId, (id, previous) -> new Session(now))
+                : sessions.computeIfAbsent(playerId, id -> new Session(now));
+        session.moveTo(serverName, now);
+    }
+
+    /**
+     * Ends the player's session and summarizes it, or returns null if no session was tracked.
+     */
+    public Summary disconnected(UUID playerId) {
+        Session session = sessions.remove(playerId);
+        return session != null ? session.close(System.nanoTime()) : null;
+    }
+
+    /**
+     * Drops sessions of players that are no longer online, e.g. when a disconnect event was missed.
+     */
+    public int evictStale(Predicate<UUID> online) {
+        long now = System.nanoTime();
+        int before = sessions.size();
+        sessions.entrySet().removeIf(entry -> now - entry.getValue().lastChange() > EVICTION_GRACE_NANOS
+                && !online.test(entry.getKey()));
+        return before - sessions.size();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Mutable per-player state; guarded by its own monitor, which is uncontended outside of hop races.
+     */
+    private static final class Session {
+        private final long startedAt;
+        private String[] servers = new String[2];
+        private long[] serverNanos = new long[2];
+        private int serverCount;
+        private int current = -1;
+        private String currentServer;
+        private long currentSince;
+        private long otherNanos;
+        private int hops;
+
+        Session(long startedAt) {
+            this.startedAt = startedAt;
+            this.currentSince = startedAt;
+        }
+
+        synchronized long lastChange() {
+            return currentSince;
+        }
+
+        synchronized void moveTo(String serverName, long now) {
+            if (serverName.equals(currentServer)) return;
+
+            if (current != -1) {
+                accumulate(now);
+                hops++;
+            }
+            current = indexOf(serverName);
+            currentServer = serverName;
+            currentSince = now;
+        }
+
+        synchronized Summary close(long now) {
+            accumulate(now);
+
+            String[] names = Arrays.copyOf(servers, serverCount);
+            long[] millis = new long[serverCount];
+            for (int i = 0; i < serverCount; i++) {
+                millis[i] = TimeUnit.NANOSECONDS.toMillis(serverNanos[i]);
+            }
+
+            return new Summary(TimeUnit.NANOSECONDS.toMillis(now - startedAt), hops, currentServer,
+                    names, millis, TimeUnit.NANOSECONDS.toMillis(otherNanos));
+        }
+
+        private void accumulate(long now) {
+            long elapsed = now - currentSince;
+            if (current >= 0) {
+                serverNanos[current] += elapsed;
+            } else if (current == -2) {
+                otherNanos += elapsed;
+            }
+            currentSince = now;
+        }
+
+        /**
+         * Slot for the server, or -2 once {@link #MAX_TRACKED_SERVERS} distinct servers have been seen.
+         */
+        private int indexOf(String serverName) {
+            for (int i = 0; i < serverCount; i++) {
+                if (servers[i].equals(serverName)) return i;
+            }
+
+            if (serverCount == MAX_TRACKED_SERVERS) return -2;
+
+            if (serverCount == servers.length) {
+                int grown = Math.min(MAX_TRACKED_SERVERS, servers.length * 2);
+                servers = Arrays.copyOf(servers, grown);
+                serverNanos = Arrays.copyOf(serverNanos, grown);
+            }
+            servers[serverCount] = serverName;
+            return serverCount++;
+        }
+    }
+
+    /**
+     * A finished session. Servers beyond the tracked limit are folded into {@code otherMillis}.
+     */
+    public record Summary(long totalMillis, int hops, String lastServer, String[] servers, long[] serverMillis, long otherMillis) {
+
+        /**
+         * One-line description used as the leave event payload, e.g. {@code 1h 12m 5s · 2 hops · lobby 2m 0s, survival 1h 10m 5s}.
+         */
+        public String describe() {
+            StringBuilder out = new StringBuilder(64);
+            appendDuration(out, totalMillis);
+
+            if (hops > 0) {
+                out.append(" · ").append(hops).append(hops == 1 ? " hop · " : " hops · ");
+                for (int i = 0; i < servers.length; i++) {
+                    if (i > 0) out.append(", ");
+                    out.append(servers[i]).append(' ');
+                    appendDuration(out, serverMillis[i]);
+                }
+                if (otherMillis > 0) {
+                    out.append(", other ");
+                    appendDuration(out, otherMillis);
+                }
+            }
+            return out.toString();
+        }
+
+        private static void appendDuration(StringBuilder out, long millis) {
+            Duration duration = Duration.ofMillis(millis);
+            out.append(duration.toHours()).append("h ")
+                    .append(duration.toMinutesPart()).append("m ")
+                    .append(duration.toSecondsPart()).append('s');
+        }
+    }
+}
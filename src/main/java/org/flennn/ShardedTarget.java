@@ -0,0 +1,221 @@
+package org.flennn;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One log channel reachable through several senders, e.g. the same channel seen by several bot sessions or several
+ * webhooks pointing at it. Each channel prefers the sender picked by rendezvous hashing of its shard key (server name
+ * and log type), so channels spread evenly and keep their sender across restarts and config reloads.
+ * <p>
+ * A sender that fails or answers slowly is marked unhealthy for a while and channels move to their next choice.
+ * A channel only changes sender once everything it sent before has settled, so messages in one channel stay in order.
+ * Sends made while the current sender is unusable but still has messages in flight wait until those settle.
+ */
+public final class ShardedTarget implements EmbedTarget {
+    private final List<EmbedTarget> senders;
+    private final List<Health> health;
+    private final String key;
+
+    private final Queue<Waiting> waiting = new ArrayDeque<>();
+    private int current;
+    private int inFlight;
+    private boolean draining;
+
+    /**
+     * @param senders the channel as seen by each sender, in the same order as {@code health}
+     */
+    public ShardedTarget(String shardKey, List<? extends EmbedTarget> senders, List<Health> health) {
+        if (senders.isEmpty() || senders.size() != health.size()) {
+            throw new IllegalArgumentException("Need one health entry per sender");
+        }
+
+        long hash = hash(shardKey);
+        List<Integer> order = new ArrayList<>(senders.size());
+        for (int i = 0; i < senders.size(); i++) order.add(i);
+        order.sort(Comparator.comparingLong((Integer i) -> mix(hash ^ health.get(i).seed)).reversed());
+
+        this.senders = order.stream().<EmbedTarget>map(senders::get).toList();
+        this.health = order.stream().map(health::get).toList();
+        this.key = senders.get(0).key();
+    }
+
+    /**
+     * Wraps a single sender without the sharding overhead.
+     */
+    public static EmbedTarget of(String shardKey, List<? extends EmbedTarget> senders, List<Health> health) {
+        return senders.size() == 1 ? senders.get(0) : new ShardedTarget(shardKey, senders, health);
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+
+    @Override
+    public String name() {
+        synchronized (this) {
+            return senders.get(current).name();
+        }
+    }
+
+    @Override
+    public void send(List<MessageEmbed> embeds, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        synchronized (this) {
+            if (draining || !waiting.isEmpty() || mustHold()) {
+                waiting.add(new Waiting(embeds, onSuccess, onFailure));
+                return;
+            }
+        }
+        dispatch(embeds, onSuccess, onFailure);
+    }
+
+    private void dispatch(List<MessageEmbed> embeds, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        EmbedTarget sender;
+        Health state;
+        synchronized (this) {
+            if (inFlight == 0) {
+                current = choose();
+            }
+            inFlight++;
+            sender = senders.get(current);
+            state = health.get(current);
+        }
+
+        long started = System.nanoTime();
+        try {
+            // Health first, so held sends released by settle() see the outcome
+            sender.send(embeds, () -> {
+                state.succeeded(System.nanoTime() - started);
+                settle();
+                onSuccess.run();
+            }, error -> {
+                state.failed();
+                settle();
+                onFailure.accept(error);
+            });
+        } catch (RuntimeException e) {
+            state.failed();
+            settle();
+            onFailure.accept(e);
+        }
+    }
+
+    /**
+     * Counts a send as settled. Once nothing is in flight, the held sends go out in order on a freshly chosen
+     * sender; the drain stops early if that sender turns unusable while they are still in flight.
+     */
+    private void settle() {
+        synchronized (this) {
+            inFlight--;
+            if (draining || waiting.isEmpty() || inFlight > 0) return;
+            draining = true;
+        }
+
+        while (true) {
+            Waiting next;
+            synchronized (this) {
+                next = mustHold() ? null : waiting.poll();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            dispatch(next.embeds, next.onSuccess, next.onFailure);
+        }
+    }
+
+    /**
+     * True if the current sender is unusable, another one would be chosen and messages are still in flight on it.
+     */
+    private boolean mustHold() {
+        return inFlight > 0 && !isUsable(current) && choose() != current;
+    }
+
+    private int choose() {
+        for (int i = 0; i < senders.size(); i++) {
+            if (isUsable(i)) return i;
+        }
+        // Nothing is healthy, stay on the preferred sender rather than spreading failures
+        return 0;
+    }
+
+    private boolean isUsable(int index) {
+        return health.get(index).isHealthy() && senders.get(index).isAvailable();
+    }
+
+    private record Waiting(List<MessageEmbed> embeds, Runnable onSuccess, Consumer<Throwable> onFailure) {
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ b) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Health of one sender, shared by every channel that can use it. Failures back off exponentially;
+     * a send that took longer than {@link #SLOW_NANOS} to be acknowledged counts as rate limited.
+     */
+    public static final class Health {
+        private static final long SLOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+        private static final long THROTTLED_NANOS = TimeUnit.SECONDS.toNanos(15);
+        private static final long MIN_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(15);
+        private static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+        private final String name;
+        private final long seed;
+        private volatile long unhealthyUntil = System.nanoTime();
+        private int failures;
+
+        /**
+         * @param identity stable identity of the sender, e.g. the bot's user ID or the webhook URL
+         */
+        public Health(String name, String identity) {
+            this.name = name;
+            this.seed = mix(hash(identity));
+        }
+
+        boolean isHealthy() {
+            return System.nanoTime() - unhealthyUntil >= 0;
+        }
+
+        synchronized void succeeded(long latencyNanos) {
+            failures = 0;
+            if (latencyNanos > SLOW_NANOS) {
+                markUnhealthy(THROTTLED_NANOS, "is being rate limited");
+            }
+        }
+
+        synchronized void failed() {
+            long backoff = Math.min(MAX_BACKOFF_NANOS, MIN_BACKOFF_NANOS << Math.min(failures, 5));
+            failures++;
+            markUnhealthy(backoff, "failed to deliver");
+        }
+
+        private void markUnhealthy(long nanos, String reason) {
+            boolean wasHealthy = isHealthy();
+            unhealthyUntil = System.nanoTime() + nanos;
+            if (wasHealthy) {
+                Utils.Log.warning(name + " " + reason + ", moving its channels to other senders for "
+                        + TimeUnit.NANOSECONDS.toSeconds(nanos) + "s");
+            }
+        }
+    }
+}
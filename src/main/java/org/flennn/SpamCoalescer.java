@@ -0,0 +1,148 @@
+package org.flennn;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Collapses a player repeating the same chat message or command within a short window. The first occurrence is
+ * logged right away; identical ones inside the window are only counted, and once the window closes a single event
+ * carrying the repeat count and the first/last repeat time is emitted.
+ * <p>
+ * Windows live in a fixed number of lock-striped, size-capped maps, so event threads for different players rarely
+ * contend and a flood of distinct messages can't grow memory. An evicted window is emitted early rather than lost.
+ */
+public class SpamCoalescer {
+    private static final int STRIPES = 16;
+    private static final int MAX_WINDOWS_PER_STRIPE = 256;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final ConfigManager configManager;
+    private final LogMetrics metrics;
+    private final Consumer<LogEvent> sink;
+
+    public SpamCoalescer(ConfigManager configManager, LogMetrics metrics, Consumer<LogEvent> sink) {
+        this.configManager = configManager;
+        this.metrics = metrics;
+        this.sink = summary -> {
+            metrics.recordPublished(summary.type());
+            sink.accept(summary);
+        };
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Returns true if the event repeats one seen within the window and must not be published on its own.
+     */
+    public boolean suppress(LogEvent event) {
+        long window = configManager.getCoalesceWindowMillis();
+        if (window <= 0) return false;
+
+        Key key = new Key(event.playerId(), event.kind(), event.serverName(), event.payload());
+        Stripe stripe = stripeFor(key);
+        LogEvent expired = null;
+        LogEvent evicted = null;
+
+        synchronized (stripe) {
+            Window current = stripe.get(key);
+            if (current != null) {
+                if (event.timestamp() - current.startedAt < window) {
+                    current.repeat(event);
+                    metrics.recordCoalesced(event.type());
+                    return true;
+                }
+
+                stripe.remove(key);
+                expired = current.summary();
+            }
+
+            if (stripe.size() >= MAX_WINDOWS_PER_STRIPE) {
+                Iterator<Window> eldest = stripe.values().iterator();
+                evicted = eldest.next().summary();
+                eldest.remove();
+            }
+            stripe.put(key, new Window(event.timestamp()));
+        }
+
+        // Summaries go out before the caller publishes the new occurrence, so the log stays in order
+        if (evicted != null) sink.accept(evicted);
+        if (expired != null) sink.accept(expired);
+        return false;
+    }
+
+    /**
+     * Closes every window older than the configured length and emits its summary. Called periodically.
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        long window = configManager.getCoalesceWindowMillis();
+        drain(started -> window <= 0 || now - started >= window);
+    }
+
+    /**
+     * Closes every open window, e.g. before shutdown.
+     */
+    public void flush() {
+        drain(started -> true);
+    }
+
+    private void drain(LongPredicate expired) {
+        List<LogEvent> summaries = new ArrayList<>();
+
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Window> windows = stripe.values().iterator();
+                while (windows.hasNext()) {
+                    Window window = windows.next();
+                    if (!expired.test(window.startedAt)) continue;
+
+                    windows.remove();
+                    LogEvent summary = window.summary();
+                    if (summary != null) summaries.add(summary);
+                }
+            }
+        }
+
+        summaries.forEach(sink);
+    }
+
+    private Stripe stripeFor(Key key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private record Key(UUID playerId, LogEvent.Kind kind, String serverName, String payload) {
+    }
+
+    private static final class Stripe extends LinkedHashMap<Key, Window> {
+    }
+
+    private static final class Window {
+        final long startedAt;
+        LogEvent last;
+        int repeats;
+        long firstRepeat;
+
+        Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        void repeat(LogEvent event) {
+            if (repeats++ == 0) firstRepeat = event.timestamp();
+            last = event;
+        }
+
+        /**
+         * The event standing for the suppressed repeats, or null if there were none.
+         */
+        LogEvent summary() {
+            return repeats > 0 ? last.repeated(repeats, firstRepeat, last.timestamp()) : null;
+        }
+    }
+}
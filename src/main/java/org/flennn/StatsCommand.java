@@ -0,0 +1,90 @@
+package org.flennn;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.SimpleCommand;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+public class StatsCommand implements SimpleCommand {
+    private final LogMetrics metrics;
+
+    public StatsCommand(LogMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void execute(Invocation invocation) {
+        CommandSource source = invocation.source();
+        if (!source.hasPermission("logger.admin")) {
+            source.sendMessage(Component.text(" ❌ You do not have permission to use this command.", NamedTextColor.RED));
+            return;
+        }
+
+        String[] arguments = invocation.arguments();
+        if (arguments.length != 1 || !arguments[0].equalsIgnoreCase("stats")) {
+            source.sendMessage(Component.text(" Usage: /proxylogger stats", NamedTextColor.GRAY));
+            return;
+        }
+
+        Duration uptime = Duration.ofMillis(metrics.getUptimeMillis());
+        source.sendMessage(Component.text(" 📈 Logger stats — up " + uptime.toHours() + "h " + uptime.toMinutesPart() + "m", NamedTextColor.GOLD));
+
+        for (DiscordLogger.LogType type : DiscordLogger.LogType.values()) {
+            source.sendMessage(Component.text(" " + type.name().toLowerCase(Locale.ROOT) + ": ", NamedTextColor.AQUA)
+                    .append(Component.text(metrics.getPublished(type) + " published, "
+                            + metrics.getDelivered(type) + " delivered, "
+                            + metrics.getFiltered(type) + " filtered, "
+                            + metrics.getCoalesced(type) + " coalesced, "
+                            + metrics.getDigested(type) + " digested", NamedTextColor.WHITE)));
+        }
+
+        LogMetrics.LatencyHistogram latency = metrics.getDeliveryLatency();
+        long count = latency.getCount();
+        String average = count > 0 ? (latency.getSumMillis() / count) + "ms" : "n/a";
+        source.sendMessage(Component.text(" Delivery latency: ", NamedTextColor.AQUA)
+                .append(Component.text("avg " + average
+                        + ", p50 " + bound(latency.quantileUpperBoundMillis(0.5), count)
+                        + ", p99 " + bound(latency.quantileUpperBoundMillis(0.99), count), NamedTextColor.WHITE)));
+
+        StringBuilder lanes = new StringBuilder();
+        for (DiscordLogger.LogType type : DiscordLogger.LogType.values()) {
+            LogMetrics.LatencyHistogram wait = metrics.getLaneWait(type);
+            if (!lanes.isEmpty()) lanes.append(", ");
+            lanes.append(type.name().toLowerCase(Locale.ROOT)).append(' ')
+                    .append(bound(wait.quantileUpperBoundMillis(0.99), wait.getCount()))
+                    .append(" (").append(metrics.getShed(type)).append(" shed)");
+        }
+        source.sendMessage(Component.text(" Lane wait p99: ", NamedTextColor.AQUA)
+                .append(Component.text(lanes.toString(), NamedTextColor.WHITE)));
+
+        source.sendMessage(Component.text(" Queue: ", NamedTextColor.AQUA)
+                .append(Component.text(metrics.getQueueDepth() + " queued, "
+                        + metrics.getSpoolPending() + " awaiting Discord, "
+                        + metrics.getSpoolDropped() + " undeliverable, "
+                        + metrics.getRestFailures() + " REST failures", NamedTextColor.WHITE)));
+    }
+
+    private static String bound(long millis, long count) {
+        if (count == 0) return "n/a";
+        return millis < 0 ? "> 5m" : "≤ " + millis + "ms";
+    }
+
+    @Override
+    public List<String> suggest(Invocation invocation) {
+        return invocation.arguments().length <= 1 ? List.of("stats") : List.of();
+    }
+
+    public void register(CommandManager commandManager, Object plugin) {
+        commandManager.register(
+                commandManager.metaBuilder("proxylogger")
+                        .plugin(plugin)
+                        .build(),
+                this
+        );
+    }
+}
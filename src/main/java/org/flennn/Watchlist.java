@@ -0,0 +1,252 @@
+package org.flennn;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watchlist terms from the {@code watchlist} section of config.yml, compiled once per config load into an
+ * Aho-Corasick automaton. Scanning a message is a single pass over its characters with one table lookup each,
+ * however many terms there are.
+ * <p>
+ * Terms and messages go through the same normalization: case, accents and common look-alike letters are folded,
+ * digit and symbol stand-ins are mapped back to letters ({@code 4 -> a}, {@code $ -> s}, ...), runs of whitespace
+ * become a single word separator and all other characters are skipped, so {@code "F.r3e   N-i_tro"} matches
+ * {@code "free nitro"} while {@code "this hit"} does not contain {@code "shit"}.
+ * <p>
+ * Terms match whole words unless they start or end with {@code *}: {@code ass} matches "ass" but not "class",
+ * {@code *ass*} matches both, and {@code discord.gg*} matches "discord.gg/abc". Messages are scanned as if
+ * surrounded by separators, so the boundaries are just part of the automaton.
+ */
+public final class Watchlist {
+    private static final int SEPARATOR = 36;
+    private static final int ALPHABET = 37;
+    private static final int MAX_HITS = 5;
+
+    static final Watchlist EMPTY = new Watchlist(new String[0], new int[ALPHABET], new int[]{-1}, new int[]{0});
+
+    private final String[] terms;
+    /** Full DFA transitions, {@code ALPHABET} entries per state; no failure-link walking at scan time. */
+    private final int[] next;
+    /** Term ending at each state, or -1. */
+    private final int[] output;
+    /** Nearest state down the failure chain with an output, or 0. */
+    private final int[] outputLink;
+
+    private Watchlist(String[] terms, int[] next, int[] output, int[] outputLink) {
+        this.terms = terms;
+        this.next = next;
+        this.output = output;
+        this.outputLink = outputLink;
+    }
+
+    public boolean isEmpty() {
+        return terms.length == 0;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Returns the distinct terms found in the text, at most a handful, or an empty list.
+     */
+    public List<String> scan(String text) {
+        if (terms.length == 0 || text == null) return List.of();
+
+        List<String> hits = new ArrayList<>(0);
+        int state = next[SEPARATOR];
+        boolean boundary = true;
+
+        for (int i = 0, length = text.length(); i < length; i++) {
+            int symbol = symbolAt(text, i);
+            if (symbol < 0) continue;
+            if (symbol == SEPARATOR) {
+                if (boundary) continue;
+                boundary = true;
+            } else {
+                boundary = false;
+            }
+
+            state = next[state * ALPHABET + symbol];
+            if (collect(state, hits)) return hits;
+        }
+
+        if (!boundary) collect(next[state * ALPHABET + SEPARATOR], hits);
+        return hits.isEmpty() ? List.of() : hits;
+    }
+
+    /**
+     * Adds the terms ending at the state to the hits. Returns true once the hit limit is reached.
+     */
+    private boolean collect(int state, List<String> hits) {
+        for (int match = output[state] >= 0 ? state : outputLink[state]; match != 0; match = outputLink[match]) {
+            String term = terms[output[match]];
+            if (!hits.contains(term)) {
+                hits.add(term);
+                if (hits.size() == MAX_HITS) return true;
+            }
+        }
+        return false;
+    }
+
+    static Watchlist compile(ConfigSnapshot.Reader reader) {
+        if (!reader.getBoolean("watchlist.enabled", false)) return EMPTY;
+
+        // Terms that normalize to the same key are one term; keep the first spelling for display
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String term : reader.getList("watchlist.terms")) {
+            String trimmed = term.trim();
+            String key = normalize(trimmed);
+            if (key.isEmpty()) {
+                Utils.Log.warning("Watchlist term '" + term + "' has no letters or digits, ignoring it");
+                continue;
+            }
+
+            // Word boundaries are separators in the key; a * on either end leaves that side open
+            String start = trimmed.startsWith("*") ? "" : " ";
+            String end = trimmed.endsWith("*") ? "" : " ";
+            unique.putIfAbsent(start + key + end, trimmed);
+        }
+
+        return unique.isEmpty() ? EMPTY : build(unique);
+    }
+
+    private static Watchlist build(Map<String, String> unique) {
+        int capacity = 1;
+        for (String key : unique.keySet()) capacity += key.length();
+
+        int[] next = new int[capacity * ALPHABET];
+        int[] output = new int[capacity];
+        Arrays.fill(output, -1);
+        int states = 1;
+
+        // Trie of the normalized terms; 0 doubles as "no transition" since the root has no incoming edges
+        String[] terms = unique.values().toArray(String[]::new);
+        int index = 0;
+        for (String key : unique.keySet()) {
+            int state = 0;
+            for (int i = 0; i < key.length(); i++) {
+                int slot = state * ALPHABET + symbol(key.charAt(i));
+                if (next[slot] == 0) next[slot] = states++;
+                state = next[slot];
+            }
+            output[state] = index++;
+        }
+
+        // Breadth-first: fill in missing transitions from the failure state and link each state to the
+        // nearest output along its failure chain
+        int[] failure = new int[states];
+        int[] outputLink = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            if (next[symbol] != 0) queue.add(next[symbol]);
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fail = failure[state];
+            outputLink[state] = output[fail] >= 0 ? fail : outputLink[fail];
+
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int slot = state * ALPHABET + symbol;
+                int child = next[slot];
+                if (child != 0) {
+                    failure[child] = next[fail * ALPHABET + symbol];
+                    queue.add(child);
+                } else {
+                    next[slot] = next[fail * ALPHABET + symbol];
+                }
+            }
+        }
+
+        return new Watchlist(terms,
+                Arrays.copyOf(next, states * ALPHABET),
+                Arrays.copyOf(output, states),
+                outputLink);
+    }
+
+    /**
+     * Normalizes a term the way messages are scanned, with single spaces between words and none at either end.
+     */
+    static String normalize(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            int symbol = symbolAt(value, i);
+            if (symbol == SEPARATOR) {
+                if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ') out.append(' ');
+            } else if (symbol >= 0) {
+                out.append(symbol < 26 ? (char) ('a' + symbol) : (char) ('0' + symbol - 26));
+            }
+        }
+        if (!out.isEmpty() && out.charAt(out.length() - 1) == ' ') out.setLength(out.length() - 1);
+        return out.toString();
+    }
+
+    /**
+     * Like {@link #symbol}, but {@code !} and {@code |} only stand in for a letter inside a word, so "you ass!"
+     * still ends in "ass" while "sh!t" reads as "shit".
+     */
+    private static int symbolAt(String text, int index) {
+        char c = text.charAt(index);
+        if ((c == '!' || c == '|') && (index + 1 == text.length() || !Character.isLetterOrDigit(text.charAt(index + 1)))) {
+            return -1;
+        }
+        return symbol(c);
+    }
+
+    /**
+     * Maps a character to its alphabet index (a-z, then the digits without a letter stand-in, then the word
+     * separator for whitespace), or -1 to skip it.
+     */
+    private static int symbol(char c) {
+        if (Character.isWhitespace(c)) return SEPARATOR;
+        if (c >= 128) c = fold(c);
+
+        if (c >= 'a' && c <= 'z') return c - 'a';
+        if (c >= 'A' && c <= 'Z') return c - 'A';
+
+        return switch (c) {
+            case '0' -> 'o' - 'a';
+            case '1', '!', '|' -> 'i' - 'a';
+            case '3' -> 'e' - 'a';
+            case '4', '@' -> 'a' - 'a';
+            case '5', '$' -> 's' - 'a';
+            case '7', '+' -> 't' - 'a';
+            case '8' -> 'b' - 'a';
+            case '2', '6', '9' -> 26 + c - '0';
+            default -> -1;
+        };
+    }
+
+    /**
+     * Folds accented letters to their base letter and common Cyrillic and Greek look-alikes to Latin.
+     */
+    private static char fold(char c) {
+        char confusable = switch (c) {
+            case 'а', 'А', 'α', 'Α' -> 'a';
+            case 'в', 'В', 'β', 'Β' -> 'b';
+            case 'с', 'С' -> 'c';
+            case 'е', 'Е', 'ε', 'Ε' -> 'e';
+            case 'н', 'Н', 'η', 'Η' -> 'h';
+            case 'і', 'І', 'ι', 'Ι' -> 'i';
+            case 'к', 'К', 'κ', 'Κ' -> 'k';
+            case 'м', 'М', 'Μ' -> 'm';
+            case 'ν', 'Ν' -> 'n';
+            case 'о', 'О', 'ο', 'Ο' -> 'o';
+            case 'р', 'Р', 'ρ', 'Ρ' -> 'p';
+            case 'т', 'Т', 'τ', 'Τ' -> 't';
+            case 'у', 'У', 'υ' -> 'y';
+            case 'х', 'Х', 'χ', 'Χ' -> 'x';
+            default -> 0;
+        };
+        if (confusable != 0) return confusable;
+
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFKD);
+        return decomposed.isEmpty() ? c : decomposed.charAt(0);
+    }
+}
@@ -0,0 +1,204 @@
+package org.flennn;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivery backend that posts to per-channel webhooks from config.yml instead of logging in a bot.
+ * All webhooks share one {@link HttpClient}, so connections to Discord are pooled and reused.
+ * <p>
+ * A channel may list several webhooks; its messages then go through a {@link ShardedTarget} that keeps them on one
+ * webhook and moves to another when that one is rate limited or failing.
+ */
+public class WebhookLogger implements LogDelivery {
+    static final String DEFAULT_SERVER = "default";
+
+    private final Map<String, ServerTargets> targets = new HashMap<>();
+    private final Map<String, ShardedTarget.Health> health = new HashMap<>();
+    private final PluginScheduler scheduler;
+    private final PluginScheduler.Group tasks;
+    private final HttpClient http;
+    private final EventSpool spool;
+    private final EmbedBatcher batcher;
+    private final EmbedRenderer renderer = new EmbedRenderer(null);
+    private final boolean batching;
+    private final LogMetrics metrics;
+    private final AtomicBoolean replayAll = new AtomicBoolean();
+
+    public WebhookLogger(ConfigManager configManager, EventSpool spool, LogMetrics metrics, PluginScheduler scheduler) {
+        this.spool = spool;
+        // Webhooks share one HTTP client and have no bot-wide limit, so max-in-flight applies once
+        this.batcher = new EmbedBatcher(spool, metrics, configManager, 1);
+        this.metrics = metrics;
+        this.batching = configManager.IsBatching();
+        this.scheduler = scheduler;
+        this.tasks = scheduler.group();
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(scheduler.workers())
+                .build();
+
+        WebhookTarget.RateLimits rateLimits = new WebhookTarget.RateLimits();
+        configManager.getWebhooks().forEach((server, urls) -> targets.put(server, new ServerTargets(
+                target(rateLimits, server + "/chat-logs", urls.chat()),
+                target(rateLimits, server + "/commands", urls.commands()),
+                target(rateLimits, server + "/join-leave", urls.joinLeave()),
+                target(rateLimits, server + "/alerts", urls.alerts()))));
+
+        if (targets.isEmpty()) {
+            Utils.Log.warning("Webhook delivery is enabled but no webhooks are configured");
+        }
+
+        tasks.repeat(() -> replayAll.set(true), 2, 2, TimeUnit.MINUTES);
+        if (batching) {
+            batcher.scheduleFlush(tasks, configManager.getBatchFlushMillis());
+        }
+    }
+
+    private EmbedTarget target(WebhookTarget.RateLimits rateLimits, String name, List<String> urls) {
+        List<WebhookTarget> senders = new ArrayList<>();
+        List<ShardedTarget.Health> states = new ArrayList<>();
+
+        for (String url : urls) {
+            if (url == null || url.isBlank()) continue;
+
+            String sender = urls.size() > 1 ? name + " #" + (senders.size() + 1) : name;
+            try {
+                senders.add(new WebhookTarget(http, rateLimits, sender, url.trim()));
+                states.add(health.computeIfAbsent(url.trim(), key -> new ShardedTarget.Health("Webhook " + sender, key)));
+            } catch (IllegalArgumentException e) {
+                Utils.Log.warning("Invalid webhook URL for " + sender + ": " + e.getMessage());
+            }
+        }
+
+        return senders.isEmpty() ? null : ShardedTarget.of(name, senders, states);
+    }
+
+    @Override
+    public void log(LogEvent event, long seq) {
+        ServerTargets server = targets.getOrDefault(event.serverName(), targets.get(DEFAULT_SERVER));
+        EmbedTarget target = server != null ? server.target(event.type()) : null;
+
+        // Nothing is configured for this server and type, so there is nowhere to deliver it
+        if (target == null) {
+            spool.ack(seq);
+            return;
+        }
+
+        try {
+            MessageEmbed embed = renderer.render(event);
+            if (batching) {
+                batcher.add(event.type(), target, embed, event, seq);
+            } else {
+                batcher.sendNow(event.type(), target, embed, event, seq);
+            }
+        } catch (Exception e) {
+            spool.nack(seq);
+            Utils.Log.warning("Failed to log event for " + event.serverName() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void logAlert(LogEvent event, List<String> hits) {
+        metrics.recordWatchlistHit();
+
+        ServerTargets server = targets.getOrDefault(event.serverName(), targets.get(DEFAULT_SERVER));
+        if (server != null && server.alerts() != null) {
+            batcher.sendAlert(server.alerts(), renderer.renderAlert(event, hits));
+        }
+    }
+
+    @Override
+    public void logDigest(EventDigest.Summary summary) {
+        ServerTargets server = targets.getOrDefault(summary.serverName(), targets.get(DEFAULT_SERVER));
+        EmbedTarget target = server != null ? server.target(summary.type()) : null;
+        if (target == null) return;
+
+        MessageEmbed embed = renderer.renderDigest(summary);
+        if (batching) {
+            batcher.add(summary.type(), target, embed, null, -1);
+        } else {
+            batcher.sendNow(summary.type(), target, embed, null, -1);
+        }
+    }
+
+    /**
+     * Alerts go to the configured alerts webhooks, so only the flush interval applies here.
+     */
+    @Override
+    public void reconfigure(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (batching && previous.batchFlushMillis() != current.batchFlushMillis()) {
+            batcher.scheduleFlush(tasks, current.batchFlushMillis());
+        }
+    }
+
+    @Override
+    public void replayDue() {
+        if (replayAll.getAndSet(false)) {
+            spool.replayFailed(this::log);
+        }
+    }
+
+    /**
+     * Flushes the batcher and closes the HTTP client in the background: closing waits for requests already sent, and
+     * this runs on the reload path, so a slow webhook must not hold up the reload. Messages still queued in a lane
+     * then fail and stay in the spool.
+     */
+    @Override
+    public void shutdown() {
+        tasks.close();
+        batcher.flush();
+        scheduler.execute(http::close);
+    }
+
+    /**
+     * Compiles the {@code discord.webhooks} section: one entry per server name, plus an optional
+     * {@code default} entry for servers without their own.
+     */
+    static Map<String, ServerWebhooks> compile(ConfigSnapshot.Reader reader) {
+        Map<String, ServerWebhooks> webhooks = new HashMap<>();
+
+        // Server names may contain dots, so read the entries directly instead of by dotted path
+        reader.getSection("discord.webhooks").forEach((server, value) -> {
+            if (!(value instanceof Map<?, ?> urls)) return;
+
+            webhooks.put(server, new ServerWebhooks(
+                    strings(urls.get("chat")),
+                    strings(urls.get("commands")),
+                    strings(urls.get("join-leave")),
+                    strings(urls.get("alerts"))));
+        });
+
+        return Map.copyOf(webhooks);
+    }
+
+    /**
+     * A single URL or a list of URLs for the same channel.
+     */
+    private static List<String> strings(Object value) {
+        if (value == null) return List.of();
+        if (value instanceof List<?> list) return list.stream().map(String::valueOf).toList();
+        return List.of(value.toString());
+    }
+
+    public record ServerWebhooks(List<String> chat, List<String> commands, List<String> joinLeave, List<String> alerts) {
+    }
+
+    private record ServerTargets(EmbedTarget chat, EmbedTarget commands, EmbedTarget joinLeave, EmbedTarget alerts) {
+        EmbedTarget target(DiscordLogger.LogType type) {
+            return switch (type) {
+                case CHAT -> chat;
+                case COMMAND -> commands;
+                case JOIN_LEAVE -> joinLeave;
+            };
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.flennn;
+
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Posts embeds to a single Discord channel webhook over plain HTTP, without a gateway session.
+ * <p>
+ * Sends to one webhook are chained so messages arrive in order, and each request waits out the bucket reported by
+ * the previous response's rate-limit headers. 429 and 5xx responses are retried a few times before failing.
+ */
+public class WebhookTarget implements EmbedTarget {
+    private static final int MAX_ATTEMPTS = 4;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
+    private static final long SERVER_ERROR_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long UNAVAILABLE_BLOCK_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final Executor DIRECT = Runnable::run;
+
+    private final RateLimits rateLimits;
+    private final HttpClient http;
+    private final URI uri;
+    private final String name;
+    private final Object lock = new Object();
+
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+    private volatile long blockedUntil = System.nanoTime();
+
+    public WebhookTarget(HttpClient http, RateLimits rateLimits, String name, String url) {
+        this.http = http;
+        this.rateLimits = rateLimits;
+        this.name = name;
+        this.uri = URI.create(url + (url.contains("?") ? "&" : "?") + "wait=true");
+    }
+
+    @Override
+    public String key() {
+        return uri.toString();
+    }
+
+    @Override
+    public String name() {
+        return "webhook " + name;
+    }
+
+    /**
+     * Short bucket resets are normal; only a longer wait is worth moving traffic to another webhook.
+     */
+    @Override
+    public boolean isAvailable() {
+        return Math.max(blockedUntil, rateLimits.globalBlockedUntil()) - System.nanoTime() < UNAVAILABLE_BLOCK_NANOS;
+    }
+
+    @Override
+    public void send(List<MessageEmbed> embeds, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        byte[] body = DataObject.empty()
+                .put("embeds", DataArray.fromCollection(embeds.stream().map(MessageEmbed::toData).toList()))
+                .toJson();
+
+        synchronized (lock) {
+            // The callbacks must not fail the chain, or every later send would fail without being attempted
+            tail = tail.thenCompose(ignored -> attempt(body, 1))
+                    .handle((ignored, error) -> {
+                        try {
+                            if (error == null) {
+                                onSuccess.run();
+                            } else {
+                                onFailure.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                            }
+                        } catch (RuntimeException e) {
+                            Utils.Log.warning("Delivery callback for " + name() + " failed: " + e.getMessage());
+                        }
+                        return null;
+                    });
+        }
+    }
+
+    private CompletableFuture<Void> attempt(byte[] body, int attempt) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        return CompletableFuture.supplyAsync(() -> request, delayUntilAllowed())
+                .thenCompose(ready -> http.sendAsync(ready, HttpResponse.BodyHandlers.ofString()))
+                .thenCompose(response -> {
+                    int status = response.statusCode();
+                    updateRateLimit(response);
+
+                    if (status / 100 == 2) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+
+                    if ((status == 429 || status / 100 == 5) && attempt < MAX_ATTEMPTS) {
+                        if (status != 429) {
+                            block(SERVER_ERROR_BACKOFF_NANOS * attempt);
+                        }
+                        return attempt(body, attempt + 1);
+                    }
+
+                    return CompletableFuture.failedFuture(new IOException("HTTP " + status + ": " + abbreviate(response.body())));
+                });
+    }
+
+    private Executor delayUntilAllowed() {
+        long wait = Math.max(blockedUntil, rateLimits.globalBlockedUntil()) - System.nanoTime();
+        return wait > 0 ? CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS) : DIRECT;
+    }
+
+    /**
+     * Applies Discord's rate-limit headers: an exhausted bucket blocks this webhook until it resets,
+     * and a global 429 blocks every webhook sharing the same {@link RateLimits}.
+     */
+    private void updateRateLimit(HttpResponse<?> response) {
+        if (response.statusCode() == 429) {
+            long retryNanos = seconds(response, "Retry-After")
+                    .or(() -> seconds(response, "X-RateLimit-Reset-After"))
+                    .orElse(SERVER_ERROR_BACKOFF_NANOS);
+
+            if (response.headers().firstValue("X-RateLimit-Global").map(Boolean::parseBoolean).orElse(false)) {
+                rateLimits.blockGlobal(retryNanos);
+            } else {
+                block(retryNanos);
+            }
+            return;
+        }
+
+        boolean exhausted = response.headers().firstValue("X-RateLimit-Remaining").map("0"::equals).orElse(false);
+        if (exhausted) {
+            seconds(response, "X-RateLimit-Reset-After").ifPresent(this::block);
+        }
+    }
+
+    private void block(long nanos) {
+        blockedUntil = System.nanoTime() + nanos;
+    }
+
+    private static Optional<Long> seconds(HttpResponse<?> response, String header) {
+        return response.headers().firstValue(header).flatMap(value -> {
+            try {
+                return Optional.of((long) (Double.parseDouble(value) * TimeUnit.SECONDS.toNanos(1)));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static String abbreviate(String body) {
+        if (body == null) return "";
+        return body.length() > 200 ? body.substring(0, 200) + "..." : body;
+    }
+
+    /**
+     * Rate-limit state shared by every webhook of one delivery backend.
+     */
+    public static final class RateLimits {
+        private volatile long globalBlockedUntil = System.nanoTime();
+
+        long globalBlockedUntil() {
+            return globalBlockedUntil;
+        }
+
+        void blockGlobal(long nanos) {
+            globalBlockedUntil = System.nanoTime() + nanos;
+        }
+    }
+}
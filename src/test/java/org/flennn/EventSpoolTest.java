@@ -0,0 +1,126 @@
+package org.flennn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reopens {@link EventSpool}s over the same folder to check what survives a restart or a torn write.
+ */
+class EventSpoolTest {
+    private static final int RECORD_HEADER = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int SEGMENT_SIZE = 64 * 1024;
+    private static final UUID PLAYER = UUID.fromString("8667ba71-b85a-4004-af54-457a9734eed7");
+
+    @TempDir
+    Path dataFolder;
+
+    @Test
+    void replaysUnackedEventsInOrderAfterReopen() throws IOException {
+        EventSpool spool = open(SEGMENT_SIZE);
+        for (int i = 1; i <= 5; i++) spool.append(event("message " + i));
+        spool.ack(1);
+        spool.ack(2);
+        spool.close();
+
+        assertEquals(List.of("3:message 3", "4:message 4", "5:message 5"), replay(open(SEGMENT_SIZE)));
+    }
+
+    @Test
+    void truncatesRecordWithBadChecksum() throws IOException {
+        EventSpool spool = open(SEGMENT_SIZE);
+        for (int i = 1; i <= 3; i++) spool.append(event("message " + i));
+        spool.close();
+
+        // Flip a payload byte of the last record, as if the process died while it was being written
+        int offset = recordOffset(2);
+        try (FileChannel channel = FileChannel.open(onlySegment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, offset + RECORD_HEADER + 4);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~value.get(0)}), offset + RECORD_HEADER + 4);
+        }
+
+        spool = open(SEGMENT_SIZE);
+        assertEquals(List.of("1:message 1", "2:message 2"), replay(spool));
+
+        // The torn record's space and sequence number are reused
+        spool.append(event("message 4"));
+        spool.close();
+        assertEquals(List.of("1:message 1", "2:message 2", "3:message 4"), replay(open(SEGMENT_SIZE)));
+    }
+
+    @Test
+    void stopsAtTornTail() throws IOException {
+        EventSpool spool = open(SEGMENT_SIZE);
+        for (int i = 1; i <= 3; i++) spool.append(event("message " + i));
+        spool.close();
+
+        // The length is written last, so a record cut short has none
+        try (FileChannel channel = FileChannel.open(onlySegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), recordOffset(1));
+        }
+
+        assertEquals(List.of("1:message 1"), replay(open(SEGMENT_SIZE)));
+    }
+
+    @Test
+    void deletesSegmentsBelowWatermark() throws IOException {
+        int recordSize = RECORD_HEADER + LogEventCodec.encode(event("message 00")).length;
+        int segmentSize = recordSize * 4 + Integer.BYTES;
+
+        EventSpool spool = open(segmentSize);
+        for (int i = 1; i <= 12; i++) spool.append(event(String.format("message %02d", i)));
+        assertEquals(3, segments().size());
+
+        for (int i = 1; i <= 10; i++) spool.ack(i);
+        spool.close();
+        assertEquals(1, segments().size());
+
+        assertEquals(List.of("11:message 11", "12:message 12"), replay(open(segmentSize)));
+    }
+
+    private EventSpool open(int segmentSize) throws IOException {
+        return new EventSpool(dataFolder, segmentSize, 64L * 1024 * 1024, 5, 60_000);
+    }
+
+    private static List<String> replay(EventSpool spool) {
+        List<String> replayed = new ArrayList<>();
+        spool.replayPending((event, seq) -> replayed.add(seq + ":" + event.payload()));
+        return replayed;
+    }
+
+    private static LogEvent event(String message) {
+        return new LogEvent(LogEvent.Kind.CHAT, "lobby", PLAYER, "Steve", "127.0.0.1", null, "vanilla", message, 1_700_000_000_000L);
+    }
+
+    /**
+     * Offset of the record at the given index in a segment of events built by {@link #event} with equally long messages.
+     */
+    private static int recordOffset(int index) {
+        return index * (RECORD_HEADER + LogEventCodec.encode(event("message 1")).length);
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dataFolder.resolve("spool"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+}
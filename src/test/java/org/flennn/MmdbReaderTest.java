@@ -0,0 +1,331 @@
+package org.flennn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs {@link MmdbReader} against small databases written by {@link Writer}, one per record size. The data section
+ * puts shared strings behind every pointer size and pads with a value long enough for the 3-byte size form, so each
+ * branch of the decoder is read at least once.
+ */
+class MmdbReaderTest {
+    private static final int MAX_24_BIT = 1 << 24;
+
+    @TempDir
+    Path folder;
+
+    @ParameterizedTest
+    @ValueSource(ints = {24, 28, 32})
+    void findsIpv4NetworksWithBothAddressForms(int recordSize) throws IOException {
+        MmdbReader reader = write(recordSize);
+
+        Map<?, ?> record = reader.lookup(address("81.2.69.142"));
+        assertEquals("DE", record.get("iso_code"));
+        assertEquals(2921044L, record.get("geoname_id"));
+        assertEquals(true, record.get("is_anonymous_vpn"));
+        assertEquals(false, record.get("is_tor_exit_node"));
+        assertEquals(443L, record.get("port"));
+        assertEquals(-7, record.get("offset"));
+        assertEquals(1L << 40, record.get("autonomous_system_number"));
+        assertEquals(BigInteger.ONE.shiftLeft(100), record.get("big"));
+        assertEquals(51.5, record.get("latitude"));
+        assertEquals(0.25f, record.get("accuracy"));
+        assertEquals(List.of("a", "b"), record.get("names"));
+        assertEquals(Map.of("iso_code", "EU"), record.get("continent"));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) record.get("raw"));
+
+        // IPv4 addresses sit under ::/96, so the 16-byte form reaches the same record
+        Map<?, ?> mapped = reader.lookup(address("::81.2.69.142"));
+        assertEquals("DE", mapped.get("iso_code"));
+        assertEquals(2921044L, mapped.get("geoname_id"));
+        assertEquals("mmdb-test", reader.databaseType());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {24, 28, 32})
+    void followsEveryPointerSize(int recordSize) throws IOException {
+        MmdbReader reader = write(recordSize);
+
+        assertEquals(Map.of("iso_code", "US"), reader.lookup(address("2001:db8::1")));
+        assertEquals(Map.of("iso_code", "NL", "registered", "DE"), reader.lookup(address("89.160.20.120")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {24, 28, 32})
+    void returnsNullOutsideEveryNetwork(int recordSize) throws IOException {
+        MmdbReader reader = write(recordSize);
+
+        assertNull(reader.lookup(address("1.1.1.1")));
+        assertNull(reader.lookup(address("81.2.70.1")));
+        assertNull(reader.lookup(address("89.160.20.128")));
+        assertNull(reader.lookup(address("2a00::1")));
+    }
+
+    @Test
+    void ipv4DatabaseSkipsIpv6Addresses() throws IOException {
+        Writer writer = new Writer(24, 4);
+        int record = writer.data(Map.of("iso_code", "SE"));
+        writer.network(address("89.160.20.112"), 28, record);
+
+        MmdbReader reader = writer.open(folder.resolve("ipv4.mmdb"));
+        assertEquals(Map.of("iso_code", "SE"), reader.lookup(address("89.160.20.113")));
+        assertNull(reader.lookup(address("::89.160.20.113")));
+        assertNull(reader.lookup(address("10.0.0.1")));
+    }
+
+    /**
+     * An IPv6 database with an IPv4 network under ::/96, an IPv6 network and one IPv4 network whose record lies past
+     * 2^24 for the 28 and 32-bit layouts, so their high bits are exercised too.
+     */
+    private MmdbReader write(int recordSize) throws IOException {
+        Writer writer = new Writer(recordSize, 6);
+
+        int germany = writer.data("DE");
+        writer.data(new byte[3000]);
+        int unitedStates = writer.data("US");
+        writer.data(new byte[recordSize == 24 ? 530_000 : MAX_24_BIT]);
+        int netherlands = writer.data("NL");
+
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("iso_code", new Pointer(0, germany));
+        first.put("geoname_id", new Uint(6, 2921044));
+        first.put("is_anonymous_vpn", true);
+        first.put("is_tor_exit_node", false);
+        first.put("port", new Uint(5, 443));
+        first.put("offset", -7);
+        first.put("autonomous_system_number", new Uint(9, 1L << 40));
+        first.put("big", BigInteger.ONE.shiftLeft(100));
+        first.put("latitude", 51.5);
+        first.put("accuracy", 0.25f);
+        first.put("names", List.of("a", "b"));
+        first.put("continent", Map.of("iso_code", "EU"));
+        first.put("raw", new byte[]{1, 2, 3});
+        writer.network(address("::81.2.69.0"), 96 + 24, writer.data(first));
+
+        writer.network(address("2001:db8::"), 32, writer.data(Map.of("iso_code", new Pointer(1, unitedStates))));
+
+        Map<String, Object> last = new LinkedHashMap<>();
+        last.put("iso_code", new Pointer(2, netherlands));
+        last.put("registered", new Pointer(3, germany));
+        writer.network(address("::89.160.20.112"), 96 + 28, writer.data(last));
+
+        return writer.open(folder.resolve("test-" + recordSize + ".mmdb"));
+    }
+
+    private static byte[] address(String text) throws IOException {
+        return InetAddress.getByName(text).getAddress();
+    }
+
+    private record Pointer(int size, int offset) {
+    }
+
+    private record Uint(int type, long value) {
+    }
+
+    /**
+     * Writes a MaxMind DB file following the published format spec, with the pointer size and integer types chosen by
+     * the caller. Networks must not overlap.
+     */
+    private static final class Writer {
+        private static final byte[] METADATA_MARKER = {(byte) 0xAB, (byte) 0xCD, (byte) 0xEF,
+                'M', 'a', 'x', 'M', 'i', 'n', 'd', '.', 'c', 'o', 'm'};
+        /** Record values during building: a node index, or a data offset encoded as {@code -2 - offset}. */
+        private static final long EMPTY = -1;
+
+        private final int recordSize;
+        private final int ipVersion;
+        private final List<long[]> nodes = new ArrayList<>();
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        Writer(int recordSize, int ipVersion) {
+            this.recordSize = recordSize;
+            this.ipVersion = ipVersion;
+            nodes.add(new long[]{EMPTY, EMPTY});
+        }
+
+        /**
+         * Appends a value to the data section and returns its offset.
+         */
+        int data(Object value) {
+            int offset = data.size();
+            encode(data, value);
+            return offset;
+        }
+
+        void network(byte[] address, int prefixLength, int dataOffset) {
+            int node = 0;
+            for (int i = 0; i < prefixLength; i++) {
+                int bit = (address[i >>> 3] >>> (7 - (i & 7))) & 1;
+                long[] records = nodes.get(node);
+
+                if (i == prefixLength - 1) {
+                    records[bit] = -2L - dataOffset;
+                } else {
+                    if (records[bit] == EMPTY) {
+                        records[bit] = nodes.size();
+                        nodes.add(new long[]{EMPTY, EMPTY});
+                    }
+                    node = (int) records[bit];
+                }
+            }
+        }
+
+        MmdbReader open(Path file) throws IOException {
+            int nodeCount = nodes.size();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            for (long[] records : nodes) {
+                long left = resolve(records[0], nodeCount);
+                long right = resolve(records[1], nodeCount);
+                switch (recordSize) {
+                    case 24 -> {
+                        writeBytes(out, left, 3);
+                        writeBytes(out, right, 3);
+                    }
+                    case 28 -> {
+                        writeBytes(out, left & 0xFFFFFF, 3);
+                        out.write((int) ((left >>> 24) << 4 | right >>> 24));
+                        writeBytes(out, right & 0xFFFFFF, 3);
+                    }
+                    default -> {
+                        writeBytes(out, left, 4);
+                        writeBytes(out, right, 4);
+                    }
+                }
+            }
+            out.write(new byte[16], 0, 16);
+            data.writeTo(out);
+
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("binary_format_major_version", new Uint(5, 2));
+            metadata.put("binary_format_minor_version", new Uint(5, 0));
+            metadata.put("database_type", "mmdb-test");
+            metadata.put("ip_version", new Uint(5, ipVersion));
+            metadata.put("node_count", new Uint(6, nodeCount));
+            metadata.put("record_size", new Uint(5, recordSize));
+            out.write(METADATA_MARKER, 0, METADATA_MARKER.length);
+            encode(out, metadata);
+
+            Files.write(file, out.toByteArray());
+            return MmdbReader.open(file);
+        }
+
+        private long resolve(long record, int nodeCount) {
+            if (record == EMPTY) return nodeCount;
+            if (record < 0) return nodeCount + 16 + (-2 - record);
+            return record;
+        }
+
+        private static void encode(ByteArrayOutputStream out, Object value) {
+            switch (value) {
+                case Pointer pointer -> writePointer(out, pointer);
+                case String text -> {
+                    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                    writeControl(out, 2, bytes.length);
+                    out.write(bytes, 0, bytes.length);
+                }
+                case Double number -> {
+                    writeControl(out, 3, 8);
+                    writeBytes(out, Double.doubleToLongBits(number), 8);
+                }
+                case byte[] bytes -> {
+                    writeControl(out, 4, bytes.length);
+                    out.write(bytes, 0, bytes.length);
+                }
+                case Uint uint -> {
+                    int size = (Long.SIZE - Long.numberOfLeadingZeros(uint.value()) + 7) / 8;
+                    writeControl(out, uint.type(), size);
+                    writeBytes(out, uint.value(), size);
+                }
+                case Map<?, ?> map -> {
+                    writeControl(out, 7, map.size());
+                    map.forEach((key, item) -> {
+                        encode(out, key);
+                        encode(out, item);
+                    });
+                }
+                case Integer number -> {
+                    writeControl(out, 8, 4);
+                    writeBytes(out, number, 4);
+                }
+                case BigInteger number -> {
+                    byte[] bytes = number.toByteArray();
+                    writeControl(out, 10, bytes.length);
+                    out.write(bytes, 0, bytes.length);
+                }
+                case List<?> list -> {
+                    writeControl(out, 11, list.size());
+                    list.forEach(item -> encode(out, item));
+                }
+                case Boolean flag -> writeControl(out, 14, flag ? 1 : 0);
+                case Float number -> {
+                    writeControl(out, 15, 4);
+                    writeBytes(out, Float.floatToIntBits(number), 4);
+                }
+                default -> throw new IllegalArgumentException("Can't encode " + value);
+            }
+        }
+
+        private static void writeControl(ByteArrayOutputStream out, int type, int size) {
+            int sizeBits = size < 29 ? size : size < 285 ? 29 : size < 65821 ? 30 : 31;
+            out.write((type <= 7 ? type : 0) << 5 | sizeBits);
+            if (type > 7) out.write(type - 7);
+
+            switch (sizeBits) {
+                case 29 -> out.write(size - 29);
+                case 30 -> writeBytes(out, size - 285, 2);
+                case 31 -> writeBytes(out, size - 65821, 3);
+                default -> {
+                }
+            }
+        }
+
+        private static void writePointer(ByteArrayOutputStream out, Pointer pointer) {
+            int offset = pointer.offset();
+            switch (pointer.size()) {
+                case 0 -> {
+                    out.write(0x20 | (offset >>> 8 & 0x07));
+                    writeBytes(out, offset, 1);
+                }
+                case 1 -> {
+                    int value = offset - 2048;
+                    out.write(0x20 | 1 << 3 | (value >>> 16 & 0x07));
+                    writeBytes(out, value, 2);
+                }
+                case 2 -> {
+                    int value = offset - 526336;
+                    out.write(0x20 | 2 << 3 | (value >>> 24 & 0x07));
+                    writeBytes(out, value, 3);
+                }
+                default -> {
+                    out.write(0x20 | 3 << 3);
+                    writeBytes(out, offset, 4);
+                }
+            }
+        }
+
+        private static void writeBytes(ByteArrayOutputStream out, long value, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                out.write((int) (value >>> (i * 8)));
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.flennn;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link WebhookTarget} against a local HTTP stub that answers with scripted responses.
+ */
+class WebhookTargetTest {
+    private static final List<MessageEmbed> EMBEDS = List.of(new EmbedBuilder().setDescription("hello").build());
+
+    private final Queue<Response> script = new ConcurrentLinkedQueue<>();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private WebhookTarget target;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/webhooks/1/token", this::handle);
+        server.start();
+
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/webhooks/1/token";
+        target = new WebhookTarget(HttpClient.newHttpClient(), new WebhookTarget.RateLimits(), "test", url);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void postsEmbedsAndWaitsForTheMessage() throws Exception {
+        script.add(new Response(200, "{}"));
+
+        assertNull(send().get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, requests.size());
+        Request request = requests.get(0);
+        assertEquals("POST", request.method());
+        assertEquals("wait=true", request.query());
+        assertTrue(request.body().contains("\"embeds\""), request.body());
+    }
+
+    @Test
+    void retriesAfterRateLimitWithRetryAfter() throws Exception {
+        script.add(new Response(429, "{}", "Retry-After", "0.3"));
+        script.add(new Response(204, ""));
+
+        assertNull(send().get(5, TimeUnit.SECONDS));
+
+        assertEquals(2, requests.size());
+        long waited = requests.get(1).receivedAt() - requests.get(0).receivedAt();
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(250), "retried after " + TimeUnit.NANOSECONDS.toMillis(waited) + "ms");
+    }
+
+    @Test
+    void waitsForExhaustedBucketBeforeNextSend() throws Exception {
+        script.add(new Response(200, "{}", "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "0.3"));
+        script.add(new Response(200, "{}"));
+
+        assertNull(send().get(5, TimeUnit.SECONDS));
+        assertNull(send().get(5, TimeUnit.SECONDS));
+
+        long waited = requests.get(1).receivedAt() - requests.get(0).receivedAt();
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(250), "second send after " + TimeUnit.NANOSECONDS.toMillis(waited) + "ms");
+    }
+
+    @Test
+    void retriesServerErrors() throws Exception {
+        script.add(new Response(500, "oops"));
+        script.add(new Response(502, "oops"));
+        script.add(new Response(200, "{}"));
+
+        assertNull(send().get(10, TimeUnit.SECONDS));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void failsClientErrorsWithoutRetrying() throws Exception {
+        script.add(new Response(400, "{\"message\": \"Invalid Form Body\"}"));
+
+        Throwable error = send().get(5, TimeUnit.SECONDS);
+        assertTrue(error instanceof IOException, String.valueOf(error));
+        assertTrue(error.getMessage().startsWith("HTTP 400"), error.getMessage());
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void throwingCallbackDoesNotBreakLaterSends() throws Exception {
+        script.add(new Response(200, "{}"));
+        script.add(new Response(200, "{}"));
+
+        target.send(EMBEDS, () -> {
+            throw new IllegalStateException("callback failed");
+        }, error -> {
+        });
+
+        assertNull(send().get(5, TimeUnit.SECONDS));
+        assertEquals(2, requests.size());
+    }
+
+    /**
+     * Sends once; completes with null on success or with the delivery error.
+     */
+    private CompletableFuture<Throwable> send() {
+        CompletableFuture<Throwable> outcome = new CompletableFuture<>();
+        target.send(EMBEDS, () -> outcome.complete(null), outcome::complete);
+        return outcome;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.add(new Request(exchange.getRequestMethod(), exchange.getRequestURI().getQuery(), body, System.nanoTime()));
+
+        Response response = script.poll();
+        if (response == null) response = new Response(500, "no scripted response");
+
+        for (int i = 0; i + 1 < response.headers().length; i += 2) {
+            exchange.getResponseHeaders().add(response.headers()[i], response.headers()[i + 1]);
+        }
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(response.status(), bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private record Request(String method, String query, String body, long receivedAt) {
+    }
+
+    private record Response(int status, String body, String... headers) {
+    }
+}